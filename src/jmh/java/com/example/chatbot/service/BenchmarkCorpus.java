@@ -0,0 +1,99 @@
+package com.example.chatbot.service;
+
+import opennlp.tools.doccat.DoccatModel;
+import opennlp.tools.tokenize.TokenizerModel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark inputs derived from {@code training.txt}: the labeled messages plus
+ * deterministic variants (casing, punctuation, filler words) so the corpus is
+ * larger than the training set and not every message is an exact training line.
+ */
+final class BenchmarkCorpus {
+
+    static final int SIZE = 1024;
+
+    // Follow-up answers used for the second turn of a symptom flow
+    static final String[] FOLLOW_UPS = {
+        "3 days", "since yesterday, mild", "today and it's severe", "about a week, getting worse",
+        "2 days", "this morning", "yesterday, slight", "5 days and terrible"
+    };
+
+    private static final String[] PREFIXES = {"", "", "hey, ", "so ", "um ", "doctor, "};
+    private static final String[] SUFFIXES = {"", "", ".", "!", "?", " please", " today"};
+
+    private static final List<String[]> LABELED = load();
+
+    private BenchmarkCorpus() {
+    }
+
+    /** Category label and text of every training line. */
+    static List<String[]> labeled() {
+        return LABELED;
+    }
+
+    /** {@link #SIZE} messages, optionally restricted to one category (null = all). */
+    static String[] messages(String category) {
+        List<String> base = new ArrayList<>();
+        for (String[] sample : LABELED) {
+            if (category == null || category.equals(sample[0])) base.add(sample[1]);
+        }
+        return vary(base);
+    }
+
+    /** {@link #SIZE} messages from every category except {@code excluded}. */
+    static String[] messagesExcept(String excluded) {
+        List<String> base = new ArrayList<>();
+        for (String[] sample : LABELED) {
+            if (!excluded.equals(sample[0])) base.add(sample[1]);
+        }
+        return vary(base);
+    }
+
+    static TokenizerModel tokenizerModel() throws IOException {
+        try (InputStream in = BenchmarkCorpus.class.getResourceAsStream("/models/en-token.bin")) {
+            return new TokenizerModel(in);
+        }
+    }
+
+    /** Trains the doccat model the same way the build does. */
+    static DoccatModel doccatModel() throws IOException {
+        try (InputStream in = BenchmarkCorpus.class.getResourceAsStream("/training.txt")) {
+            return DoccatModelTrainer.train(in);
+        }
+    }
+
+    private static String[] vary(List<String> base) {
+        Random random = new Random(42);
+        String[] out = new String[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            String text = base.get(i % base.size());
+            if (i >= base.size()) {
+                text = PREFIXES[random.nextInt(PREFIXES.length)] + text + SUFFIXES[random.nextInt(SUFFIXES.length)];
+                if (random.nextInt(4) == 0) text = Character.toUpperCase(text.charAt(0)) + text.substring(1);
+            }
+            out[i] = text;
+        }
+        return out;
+    }
+
+    private static List<String[]> load() {
+        List<String[]> samples = new ArrayList<>();
+        try (InputStream in = BenchmarkCorpus.class.getResourceAsStream("/training.txt")) {
+            for (String line : new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+                int space = line.indexOf(' ');
+                if (space > 0) samples.add(new String[] {line.substring(0, space), line.substring(space + 1).trim()});
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return samples;
+    }
+}
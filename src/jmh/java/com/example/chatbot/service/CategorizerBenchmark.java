@@ -0,0 +1,76 @@
+package com.example.chatbot.service;
+
+import opennlp.tools.doccat.DoccatModel;
+import opennlp.tools.doccat.DocumentCategorizerME;
+import opennlp.tools.tokenize.TokenizerME;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DocumentCategorizerME.categorize on pre-tokenized corpus messages, against the same
+ * model compiled into a {@link CompiledDoccatModel}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CategorizerBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Model {
+        DoccatModel doccat;
+        CompiledDoccatModel compiled;
+        String[][] tokens;
+
+        @Setup
+        public void setup() throws IOException {
+            doccat = BenchmarkCorpus.doccatModel();
+            compiled = CompiledDoccatModel.compile(doccat, 1e-4);
+            TokenizerME tokenizer = new TokenizerME(BenchmarkCorpus.tokenizerModel());
+            String[] messages = BenchmarkCorpus.messages(null);
+            tokens = new String[messages.length][];
+            for (int i = 0; i < messages.length; i++) tokens[i] = tokenizer.tokenize(messages[i].toLowerCase());
+        }
+    }
+
+    // The ME wrapper is not thread-safe, so every benchmark thread gets its own
+    @State(Scope.Thread)
+    public static class Worker {
+        DocumentCategorizerME categorizer;
+        double[] scores;
+        int next;
+
+        @Setup
+        public void setup(Model model) {
+            categorizer = new DocumentCategorizerME(model.doccat);
+            scores = new double[model.compiled.getOutcomeCount()];
+        }
+    }
+
+    @Benchmark
+    public String categorize(Model model, Worker worker) {
+        double[] outcomes = worker.categorizer.categorize(model.tokens[worker.next++ & (model.tokens.length - 1)]);
+        return worker.categorizer.getBestCategory(outcomes);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String categorizeMultiThreaded(Model model, Worker worker) {
+        return categorize(model, worker);
+    }
+
+    @Benchmark
+    public String categorizeCompiled(Model model, Worker worker) {
+        double[] outcomes = model.compiled.categorize(model.tokens[worker.next++ & (model.tokens.length - 1)], worker.scores);
+        return model.compiled.getBestCategory(outcomes);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String categorizeCompiledMultiThreaded(Model model, Worker worker) {
+        return categorizeCompiled(model, worker);
+    }
+}
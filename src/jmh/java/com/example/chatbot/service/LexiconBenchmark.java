@@ -0,0 +1,75 @@
+package com.example.chatbot.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keyword stages: symptom detection, the fallback classifier and follow-up detail
+ * parsing. {@code extraTerms} pads the knowledge base with synthetic symptoms to
+ * show that per-message cost stays flat as the lexicon grows.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LexiconBenchmark {
+
+    @Param({"0", "1000", "10000"})
+    public int extraTerms;
+
+    private Lexicon lexicon;
+    private String[] messages;
+    private String[] followUps;
+
+    @Setup
+    public void setup() throws IOException {
+        ObjectNode knowledgeBase;
+        try (InputStream in = getClass().getResourceAsStream("/knowledge-base/en.json")) {
+            knowledgeBase = (ObjectNode) new ObjectMapper().readTree(in);
+        }
+        ObjectNode symptoms = (ObjectNode) knowledgeBase.get("symptoms");
+        Random random = new Random(7);
+        for (int i = 0; i < extraTerms; i++) {
+            StringBuilder term = new StringBuilder();
+            int length = 5 + random.nextInt(12);
+            for (int c = 0; c < length; c++) term.append((char) ('a' + random.nextInt(26)));
+            term.append(" syndrome ").append(i);
+            symptoms.putObject(term.toString()).put("care", "rest and monitor your symptoms.");
+        }
+        lexicon = KnowledgeCatalog.compile(knowledgeBase).getLexicon();
+
+        messages = BenchmarkCorpus.messages(null);
+        for (int i = 0; i < messages.length; i++) messages[i] = messages[i].toLowerCase();
+        followUps = BenchmarkCorpus.FOLLOW_UPS;
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public List<String> detectSymptoms(Cursor cursor) {
+        return lexicon.detectSymptoms(messages[cursor.next++ & (messages.length - 1)]);
+    }
+
+    @Benchmark
+    public String classifyBasic(Cursor cursor) {
+        return lexicon.classify(messages[cursor.next++ & (messages.length - 1)]);
+    }
+
+    @Benchmark
+    public ParsedDetails parseSymptomDetails(Cursor cursor) {
+        return lexicon.parseDetails(followUps[cursor.next++ % followUps.length]);
+    }
+}
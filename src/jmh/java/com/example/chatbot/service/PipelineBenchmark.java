@@ -0,0 +1,106 @@
+package com.example.chatbot.service;
+
+import com.example.chatbot.ChatbotApplication;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Full {@link NLPService#generateResponse(String, String)} turns against the real
+ * Spring wiring (no web server), plus the NER/keyword extraction stage on its own.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class App {
+        ConfigurableApplicationContext context;
+        NLPService nlpService;
+        Lexicon lexicon;
+        String[] singleTurn;
+        String[] symptoms;
+        String[][] symptomTokens;
+        final AtomicInteger sessions = new AtomicInteger();
+
+        @Setup
+        public void setup() {
+            context = new SpringApplicationBuilder(ChatbotApplication.class)
+                    .web(WebApplicationType.NONE)
+                    // Measure the pipeline only: no event-log writer thread or file I/O, no admission control
+                    .properties("logging.level.root=WARN", "chat.event-log.enabled=false", "chat.admission.enabled=false")
+                    .run();
+            nlpService = context.getBean(NLPService.class);
+            lexicon = context.getBean(KnowledgeBase.class).current().getLexicon();
+            // Symptom messages open a follow-up flow, so they only appear in symptomFlow
+            singleTurn = BenchmarkCorpus.messagesExcept("symptom");
+            symptoms = BenchmarkCorpus.messages("symptom");
+            symptomTokens = new String[symptoms.length][];
+            NLPEngine engine = nlpService.getEnginePool().borrow();
+            for (int i = 0; i < symptoms.length; i++) symptomTokens[i] = engine.tokenize(symptoms[i].toLowerCase());
+            nlpService.getEnginePool().release(engine);
+        }
+
+        @TearDown
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Session {
+        String sessionId;
+        int next;
+
+        @Setup
+        public void setup(App app) {
+            sessionId = "bench-" + app.sessions.incrementAndGet();
+        }
+    }
+
+    @Benchmark
+    public String singleTurn(App app, Session session) {
+        return app.nlpService.generateResponse(app.singleTurn[session.next++ & (app.singleTurn.length - 1)], session.sessionId);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String singleTurnMultiThreaded(App app, Session session) {
+        return singleTurn(app, session);
+    }
+
+    // Symptom report followed by the duration answer; leaves the session back at no state
+    @Benchmark
+    public void symptomFlow(App app, Session session, Blackhole bh) {
+        int i = session.next++;
+        bh.consume(app.nlpService.generateResponse(app.symptoms[i & (app.symptoms.length - 1)], session.sessionId));
+        bh.consume(app.nlpService.generateResponse(BenchmarkCorpus.FOLLOW_UPS[i % BenchmarkCorpus.FOLLOW_UPS.length], session.sessionId));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void symptomFlowMultiThreaded(App app, Session session, Blackhole bh) {
+        symptomFlow(app, session, bh);
+    }
+
+    @Benchmark
+    public List<String> extractSymptoms(App app, Session session) {
+        int i = session.next++ & (app.symptoms.length - 1);
+        NLPEnginePool pool = app.nlpService.getEnginePool();
+        NLPEngine engine = pool.borrow();
+        try {
+            return app.nlpService.extractSymptoms(engine, app.lexicon, app.lexicon.scan(app.symptoms[i].toLowerCase()), app.symptomTokens[i]);
+        } finally {
+            pool.release(engine);
+        }
+    }
+}
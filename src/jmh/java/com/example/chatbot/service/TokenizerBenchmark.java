@@ -0,0 +1,52 @@
+package com.example.chatbot.service;
+
+import opennlp.tools.tokenize.TokenizerME;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TokenizerME against the whitespace split NLPEngine falls back to and the
+ * allocation-free spans of {@link InputText}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TokenizerBenchmark {
+
+    private TokenizerME tokenizer;
+    private final InputText input = new InputText();
+    private String[] messages;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        tokenizer = new TokenizerME(BenchmarkCorpus.tokenizerModel());
+        messages = BenchmarkCorpus.messages(null);
+        for (int i = 0; i < messages.length; i++) messages[i] = messages[i].toLowerCase();
+    }
+
+    private String nextMessage() {
+        return messages[next++ & (messages.length - 1)];
+    }
+
+    @Benchmark
+    public String[] tokenizerME() {
+        return tokenizer.tokenize(nextMessage());
+    }
+
+    @Benchmark
+    public String[] whitespaceSplit() {
+        return nextMessage().split("\\s+");
+    }
+
+    @Benchmark
+    public int inputTextSpans() {
+        input.set(nextMessage());
+        return input.tokenCount();
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.chatbot.loadtest;
+
+import com.example.chatbot.service.DoccatModelTrainer;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import opennlp.tools.doccat.DocumentSample;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Multi-turn conversations for {@link LoadGenerator} to replay. On disk a corpus is
+ * JSON lines, one session per line; {@code type} labels the turn in the report:
+ * <pre>
+ * {"turns":[{"type":"greeting","message":"hi"},{"type":"symptom","message":"I have a fever"},{"type":"duration","message":"3 days, mild"}]}
+ * </pre>
+ * {@link #synthesize} builds sessions from the labeled lines of {@code training.txt}:
+ * an optional greeting, one request of any other intent (a symptom is followed by
+ * the duration answer, sometimes after an unclear one), and an optional thanks or
+ * goodbye. Messages get the same casing and punctuation variants as the benchmarks.
+ */
+final class ConversationCorpus {
+
+    record Turn(String type, String message) {
+    }
+
+    record Session(List<Turn> turns) {
+    }
+
+    static final String DURATION = "duration";
+    static final String UNCLEAR = "unclear";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final Set<String> SMALL_TALK = Set.of("greeting", "thanks", "goodbye");
+
+    private static final String[] DURATIONS = {
+        "3 days", "since yesterday, mild", "today and it's severe", "about a week, getting worse",
+        "2 days", "this morning", "yesterday, slight", "5 days and terrible"
+    };
+    private static final String[] UNCLEAR_REPLIES = {"not sure", "hmm", "it comes and goes", "I don't know"};
+    private static final String[] PREFIXES = {"", "", "hey, ", "so ", "um ", "doctor, "};
+    private static final String[] SUFFIXES = {"", "", ".", "!", "?", " please", " today"};
+
+    private ConversationCorpus() {
+    }
+
+    static List<Session> read(Path file) throws IOException {
+        List<Session> sessions = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                Session session = MAPPER.readValue(line, Session.class);
+                if (session.turns() == null || session.turns().isEmpty()) {
+                    throw new IOException("Session without turns in " + file + ": " + line);
+                }
+                sessions.add(session);
+            }
+        }
+        if (sessions.isEmpty()) {
+            throw new IOException("No sessions in " + file);
+        }
+        return sessions;
+    }
+
+    static void write(Path file, List<Session> sessions) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Session session : sessions) {
+                writer.write(MAPPER.writeValueAsString(session));
+                writer.newLine();
+            }
+        }
+    }
+
+    /** {@code count} sessions built from the "category text" lines of {@code trainingData}. */
+    static List<Session> synthesize(InputStream trainingData, int count, long seed) throws IOException {
+        Map<String, List<String>> byCategory = new LinkedHashMap<>();
+        List<DocumentSample> requests = new ArrayList<>();
+        for (DocumentSample sample : DoccatModelTrainer.readSamples(trainingData)) {
+            byCategory.computeIfAbsent(sample.getCategory(), c -> new ArrayList<>()).add(String.join(" ", sample.getText()));
+            if (!SMALL_TALK.contains(sample.getCategory())) requests.add(sample);
+        }
+        if (requests.isEmpty()) {
+            throw new IOException("Training data has no intents besides greeting, thanks and goodbye");
+        }
+
+        Random random = new Random(seed);
+        List<Session> sessions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            List<Turn> turns = new ArrayList<>(4);
+            if (random.nextInt(2) == 0) addTurn(turns, byCategory, "greeting", random);
+            // Intents are drawn in proportion to their training lines, so symptoms dominate
+            DocumentSample request = requests.get(random.nextInt(requests.size()));
+            turns.add(new Turn(request.getCategory(), vary(String.join(" ", request.getText()), random)));
+            if ("symptom".equals(request.getCategory())) {
+                if (random.nextInt(8) == 0) turns.add(new Turn(UNCLEAR, pick(UNCLEAR_REPLIES, random)));
+                turns.add(new Turn(DURATION, pick(DURATIONS, random)));
+            }
+            if (random.nextInt(3) == 0) addTurn(turns, byCategory, random.nextBoolean() ? "thanks" : "goodbye", random);
+            sessions.add(new Session(turns));
+        }
+        return sessions;
+    }
+
+    private static void addTurn(List<Turn> turns, Map<String, List<String>> byCategory, String category, Random random) {
+        List<String> messages = byCategory.get(category);
+        if (messages != null) {
+            turns.add(new Turn(category, vary(messages.get(random.nextInt(messages.size())), random)));
+        }
+    }
+
+    private static String vary(String text, Random random) {
+        text = pick(PREFIXES, random) + text + pick(SUFFIXES, random);
+        if (random.nextInt(4) == 0) text = Character.toUpperCase(text.charAt(0)) + text.substring(1);
+        return text;
+    }
+
+    private static String pick(String[] values, Random random) {
+        return values[random.nextInt(values.length)];
+    }
+}
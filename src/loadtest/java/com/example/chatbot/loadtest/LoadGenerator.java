@@ -0,0 +1,467 @@
+package com.example.chatbot.loadtest;
+
+import com.example.chatbot.ChatbotApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays multi-turn conversations against {@code POST /chat} under an open workload:
+ * sessions arrive at {@code --rate} per second with exponential gaps, whether or not
+ * earlier ones have finished, so a slow server builds a backlog the way real traffic
+ * does. Turns within a session run in order, {@code --think-ms} apart. Unless
+ * {@code --url} points at a running instance, the app is started in this JVM on a
+ * free port, with {@code --set key=value} properties applied.
+ * <p>
+ * A turn's latency runs from when it was due, not from when it was sent, so lag in
+ * the generator itself is not hidden. Only turns due after {@code --warmup} count.
+ * The report gives throughput, p50/p99/p999 per turn type, the error rate and GC
+ * activity read from the target's Actuator metrics. {@code --max-p99-ms} and
+ * {@code --max-error-rate} make the run exit with status 1 when exceeded, so it can
+ * gate a deploy.
+ */
+public final class LoadGenerator {
+
+    private static final String USAGE = String.join("\n",
+            "Usage: LoadGenerator [options]",
+            "  --corpus <file>          sessions to replay, JSON lines (default: synthesized from training.txt)",
+            "  --synthesize <n>         sessions to synthesize when no corpus is given (default 1000)",
+            "  --seed <n>               seed for synthesis and arrivals (default 42)",
+            "  --write-corpus <file>    also save the sessions used, e.g. to edit and replay later",
+            "  --rate <n>               session arrivals per second (default 50)",
+            "  --duration <s>           measured seconds (default 30)",
+            "  --warmup <s>             seconds of load before measuring (default 10)",
+            "  --think-ms <n>           pause between the turns of a session (default 50)",
+            "  --max-sessions <n>       concurrent sessions; arrivals beyond it are counted as dropped (default 10000)",
+            "  --timeout-ms <n>         per-request timeout (default 10000)",
+            "  --url <base url>         target a running instance instead of starting one",
+            "  --set <key=value>        property for the embedded app, repeatable",
+            "  --report <file>          write the report as JSON",
+            "  --max-p99-ms <n>         fail if the p99 of all turns exceeds this",
+            "  --max-error-rate <r>     fail if the share of failed turns exceeds this (0..1)");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient client;
+    private final URI chatUri;
+    private final List<ConversationCorpus.Session> corpus;
+    private final long thinkNanos;
+    private final Duration timeout;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "load-think");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, Recorder> byType = new TreeMap<>();
+    private final Recorder allTurns = new Recorder();
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final AtomicLong sessionsStarted = new AtomicLong();
+    private final AtomicLong sessionsCompleted = new AtomicLong();
+    private final AtomicLong sessionsAbandoned = new AtomicLong();
+    private final AtomicLong arrivalsDropped = new AtomicLong();
+    // Turns due in [measureFrom, measureUntil) are recorded
+    private volatile long measureFromNanos;
+    private volatile long measureUntilNanos;
+
+    LoadGenerator(HttpClient client, String baseUrl, List<ConversationCorpus.Session> corpus, long thinkMs, long timeoutMs) {
+        this.client = client;
+        this.chatUri = URI.create(baseUrl + "/chat");
+        this.corpus = corpus;
+        this.thinkNanos = TimeUnit.MILLISECONDS.toNanos(thinkMs);
+        this.timeout = Duration.ofMillis(timeoutMs);
+        for (ConversationCorpus.Session session : corpus) {
+            for (ConversationCorpus.Turn turn : session.turns()) {
+                byType.putIfAbsent(turn.type(), new Recorder());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        if (options == null) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        List<ConversationCorpus.Session> corpus;
+        if (options.corpus != null) {
+            corpus = ConversationCorpus.read(options.corpus);
+        } else {
+            try (InputStream in = LoadGenerator.class.getResourceAsStream("/training.txt")) {
+                corpus = ConversationCorpus.synthesize(in, options.synthesize, options.seed);
+            }
+        }
+        if (options.writeCorpus != null) {
+            ConversationCorpus.write(options.writeCorpus, corpus);
+        }
+
+        ConfigurableApplicationContext context = null;
+        String baseUrl = options.url;
+        if (baseUrl == null) {
+            List<String> appArgs = new ArrayList<>();
+            for (String property : options.properties) appArgs.add("--" + property);
+            context = new SpringApplicationBuilder(ChatbotApplication.class)
+                    .properties("server.port=0", "logging.level.root=WARN", "spring.main.banner-mode=off")
+                    .run(appArgs.toArray(new String[0]));
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        }
+
+        int exitCode;
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            LoadGenerator generator = new LoadGenerator(client, baseUrl, corpus, options.thinkMs, options.timeoutMs);
+            GcMetrics gc = new GcMetrics(client, baseUrl);
+            Map<String, Object> report = generator.run(options, gc, context != null);
+            print(report, System.out);
+            if (options.report != null) {
+                MAPPER.writerWithDefaultPrettyPrinter().writeValue(options.report.toFile(), report);
+            }
+            exitCode = checkThresholds(report, options, System.out) ? 0 : 1;
+        } finally {
+            if (context != null) context.close();
+        }
+        System.exit(exitCode);
+    }
+
+    Map<String, Object> run(Options options, GcMetrics gc, boolean embedded) throws InterruptedException {
+        Random random = new Random(options.seed);
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(options.warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+        measureFromNanos = measureFrom;
+        measureUntilNanos = end;
+        double meanGapNanos = 1e9 / options.rate;
+
+        GcMetrics.Snapshot gcBefore = null;
+        boolean measuring = false;
+        long due = start;
+        int next = 0;
+        while (due < end) {
+            if (!measuring && due >= measureFrom) {
+                measuring = true;
+                gcBefore = gc.snapshot();
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (activeSessions.get() >= options.maxSessions) {
+                if (due >= measureFrom) arrivalsDropped.incrementAndGet();
+            } else {
+                ConversationCorpus.Session session = corpus.get(next++ % corpus.size());
+                activeSessions.incrementAndGet();
+                if (due >= measureFrom) sessionsStarted.incrementAndGet();
+                sendTurn(session, "load-" + next, 0, due, due >= measureFrom);
+            }
+            // Poisson arrivals: exponentially distributed gaps around the configured rate
+            due += (long) (-Math.log(1.0 - random.nextDouble()) * meanGapNanos);
+        }
+        long parked = end - System.nanoTime();
+        if (parked > 0) {
+            LockSupport.parkNanos(parked);
+        }
+        double elapsedSeconds = (System.nanoTime() - measureFrom) / 1e9;
+        GcMetrics.Snapshot gcAfter = gc.snapshot();
+
+        // Let sessions in progress finish so they count as completed; their later turns are not recorded
+        long drainUntil = System.nanoTime() + timeout.toNanos() + 5 * thinkNanos;
+        while (activeSessions.get() > 0 && System.nanoTime() < drainUntil) {
+            Thread.sleep(10);
+        }
+        return report(options, elapsedSeconds, gcBefore, gcAfter, embedded);
+    }
+
+    // measured: the session arrived in the measurement window and counts in the session totals
+    private void sendTurn(ConversationCorpus.Session session, String sessionId, int index, long dueNanos, boolean measured) {
+        ConversationCorpus.Turn turn = session.turns().get(index);
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(chatUri)
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(
+                            Map.of("sessionId", sessionId, "message", turn.message()))))
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+            long now = System.nanoTime();
+            int status = failure != null ? -1 : response.statusCode();
+            if (dueNanos >= measureFromNanos && dueNanos < measureUntilNanos) {
+                long micros = (now - dueNanos) / 1000;
+                byType.get(turn.type()).add(micros, status);
+                allTurns.add(micros, status);
+            }
+            if (status != 200) {
+                // A client would not carry on with a conversation the server dropped
+                if (measured) sessionsAbandoned.incrementAndGet();
+                activeSessions.decrementAndGet();
+            } else if (index + 1 < session.turns().size()) {
+                long nextDue = now + thinkNanos;
+                scheduler.schedule(() -> sendTurn(session, sessionId, index + 1, nextDue, measured),
+                        thinkNanos, TimeUnit.NANOSECONDS);
+            } else {
+                if (measured) sessionsCompleted.incrementAndGet();
+                activeSessions.decrementAndGet();
+            }
+        });
+    }
+
+    private Map<String, Object> report(Options options, double elapsedSeconds, GcMetrics.Snapshot gcBefore,
+                                       GcMetrics.Snapshot gcAfter, boolean embedded) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("target", embedded ? "embedded" : chatUri.toString());
+        report.put("rate", options.rate);
+        report.put("seconds", round(elapsedSeconds));
+        report.put("sessionsStarted", sessionsStarted.get());
+        report.put("sessionsCompleted", sessionsCompleted.get());
+        report.put("sessionsAbandoned", sessionsAbandoned.get());
+        report.put("arrivalsDropped", arrivalsDropped.get());
+        report.put("turnsPerSecond", round(allTurns.count() / elapsedSeconds));
+        report.put("all", allTurns.summary());
+        Map<String, Object> types = new LinkedHashMap<>();
+        byType.forEach((type, recorder) -> types.put(type, recorder.summary()));
+        report.put("byType", types);
+        if (gcBefore != null && gcAfter != null) {
+            Map<String, Object> gc = new LinkedHashMap<>();
+            gc.put("pauses", gcAfter.pauses() - gcBefore.pauses());
+            gc.put("pauseMillis", round(gcAfter.pauseMillis() - gcBefore.pauseMillis()));
+            // Micrometer's MAX decays over about two minutes rather than covering the run, so it
+            // can miss an early pause of a long run or include one from warm-up
+            gc.put("recentMaxPauseMillis", round(gcAfter.recentMaxPauseMillis()));
+            long allocated = gcAfter.allocatedBytes() - gcBefore.allocatedBytes();
+            gc.put("allocatedBytes", allocated);
+            gc.put("allocatedBytesPerTurn", allTurns.count() > 0 ? allocated / allTurns.count() : 0);
+            // An embedded target shares the JVM with the generator, whose work is counted too
+            gc.put("includesGenerator", embedded);
+            report.put("gc", gc);
+        }
+        return report;
+    }
+
+    @SuppressWarnings("unchecked")
+    static void print(Map<String, Object> report, PrintStream out) {
+        out.printf("target %s, %s sessions/s for %s s%n", report.get("target"), report.get("rate"), report.get("seconds"));
+        out.printf("sessions: %s started, %s completed, %s abandoned after an error, %s arrivals dropped%n",
+                report.get("sessionsStarted"), report.get("sessionsCompleted"), report.get("sessionsAbandoned"),
+                report.get("arrivalsDropped"));
+        out.printf("throughput: %s turns/s%n", report.get("turnsPerSecond"));
+        out.printf("%-12s %8s %8s %8s %8s %9s %9s %9s %9s%n",
+                "turn", "ok", "shed", "errors", "err %", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        Map<String, Map<String, Object>> types = (Map<String, Map<String, Object>>) report.get("byType");
+        types.forEach((type, summary) -> printRow(type, summary, out));
+        printRow("all", (Map<String, Object>) report.get("all"), out);
+        Map<String, Object> gc = (Map<String, Object>) report.get("gc");
+        if (gc != null) {
+            out.printf("gc: %s pauses, %s ms total, %s ms recent max; %s MB allocated, %s bytes/turn%s%n",
+                    gc.get("pauses"), gc.get("pauseMillis"), gc.get("recentMaxPauseMillis"),
+                    (long) gc.get("allocatedBytes") / (1024 * 1024), gc.get("allocatedBytesPerTurn"),
+                    Boolean.TRUE.equals(gc.get("includesGenerator")) ? " (includes the generator)" : "");
+        } else {
+            out.println("gc: unavailable (target does not expose /actuator/metrics)");
+        }
+    }
+
+    private static void printRow(String name, Map<String, Object> summary, PrintStream out) {
+        out.printf("%-12s %8s %8s %8s %8s %9s %9s %9s %9s%n", name, summary.get("ok"), summary.get("shed"),
+                summary.get("errors"), summary.get("errorPercent"), summary.get("p50Ms"), summary.get("p99Ms"),
+                summary.get("p999Ms"), summary.get("maxMs"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean checkThresholds(Map<String, Object> report, Options options, PrintStream out) {
+        Map<String, Object> all = (Map<String, Object>) report.get("all");
+        boolean passed = true;
+        if (options.maxP99Ms > 0 && ((Number) all.get("p99Ms")).doubleValue() > options.maxP99Ms) {
+            out.printf("FAILED: p99 %s ms is above %s ms%n", all.get("p99Ms"), options.maxP99Ms);
+            passed = false;
+        }
+        double errorRate = ((Number) all.get("errorPercent")).doubleValue() / 100;
+        if (options.maxErrorRate >= 0 && errorRate > options.maxErrorRate) {
+            out.printf("FAILED: error rate %s is above %s%n", round(errorRate), options.maxErrorRate);
+            passed = false;
+        }
+        return passed;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /** Latencies of successful turns and the outcome counts of one turn type. */
+    private static final class Recorder {
+        private long[] micros = new long[1024];
+        private int ok;
+        private long shed;
+        private long errors;
+
+        synchronized void add(long latencyMicros, int status) {
+            if (status == 200) {
+                if (ok == micros.length) micros = Arrays.copyOf(micros, ok * 2);
+                micros[ok++] = latencyMicros;
+            } else if (status == 503) {
+                shed++;
+            } else {
+                errors++;
+            }
+        }
+
+        synchronized long count() {
+            return ok + shed + errors;
+        }
+
+        synchronized Map<String, Object> summary() {
+            long[] sorted = Arrays.copyOf(micros, ok);
+            Arrays.sort(sorted);
+            long total = ok + shed + errors;
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("ok", ok);
+            summary.put("shed", shed);
+            summary.put("errors", errors);
+            // Shed turns count as failed: the client did not get an answer
+            summary.put("errorPercent", total > 0 ? round(100.0 * (shed + errors) / total) : 0.0);
+            summary.put("p50Ms", percentile(sorted, 0.50));
+            summary.put("p99Ms", percentile(sorted, 0.99));
+            summary.put("p999Ms", percentile(sorted, 0.999));
+            summary.put("maxMs", sorted.length > 0 ? round(sorted[sorted.length - 1] / 1000.0) : 0.0);
+            return summary;
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) return 0.0;
+            return round(sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1000.0);
+        }
+    }
+
+    /** GC pauses and allocation of the target, from its Actuator metrics endpoint. */
+    static final class GcMetrics {
+
+        record Snapshot(long pauses, double pauseMillis, double recentMaxPauseMillis, long allocatedBytes) {
+        }
+
+        private final HttpClient client;
+        private final String baseUrl;
+
+        GcMetrics(HttpClient client, String baseUrl) {
+            this.client = client;
+            this.baseUrl = baseUrl;
+        }
+
+        /** Null if the target has no metrics endpoint. */
+        Snapshot snapshot() {
+            try {
+                JsonNode pause = metric("jvm.gc.pause");
+                JsonNode allocated = metric("jvm.gc.memory.allocated");
+                if (pause == null && allocated == null && metric(null) == null) {
+                    return null;
+                }
+                return new Snapshot((long) statistic(pause, "COUNT"), statistic(pause, "TOTAL_TIME") * 1000,
+                        statistic(pause, "MAX") * 1000, (long) statistic(allocated, "COUNT"));
+            } catch (IOException e) {
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+
+        // Null on 404: Micrometer registers the GC meters on the first collection
+        private JsonNode metric(String name) throws IOException, InterruptedException {
+            String path = name == null ? "/actuator/metrics" : "/actuator/metrics/" + name;
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(5))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200 ? MAPPER.readTree(response.body()) : null;
+        }
+
+        private static double statistic(JsonNode metric, String statistic) {
+            if (metric == null) return 0;
+            for (JsonNode measurement : metric.path("measurements")) {
+                if (statistic.equals(measurement.path("statistic").asText())) {
+                    return measurement.path("value").asDouble();
+                }
+            }
+            return 0;
+        }
+    }
+
+    static final class Options {
+        Path corpus;
+        int synthesize = 1000;
+        long seed = 42;
+        Path writeCorpus;
+        double rate = 50;
+        int durationSeconds = 30;
+        int warmupSeconds = 10;
+        long thinkMs = 50;
+        int maxSessions = 10_000;
+        long timeoutMs = 10_000;
+        String url;
+        final List<String> properties = new ArrayList<>();
+        Path report;
+        double maxP99Ms;
+        double maxErrorRate = -1;
+
+        /** Null on a usage error. */
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                if (i + 1 >= args.length) return null;
+                String value = args[++i];
+                switch (args[i - 1]) {
+                    case "--corpus" -> options.corpus = Paths.get(value);
+                    case "--synthesize" -> options.synthesize = Integer.parseInt(value);
+                    case "--seed" -> options.seed = Long.parseLong(value);
+                    case "--write-corpus" -> options.writeCorpus = Paths.get(value);
+                    case "--rate" -> options.rate = Double.parseDouble(value);
+                    case "--duration" -> options.durationSeconds = Integer.parseInt(value);
+                    case "--warmup" -> options.warmupSeconds = Integer.parseInt(value);
+                    case "--think-ms" -> options.thinkMs = Long.parseLong(value);
+                    case "--max-sessions" -> options.maxSessions = Integer.parseInt(value);
+                    case "--timeout-ms" -> options.timeoutMs = Long.parseLong(value);
+                    case "--url" -> options.url = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                    case "--set" -> options.properties.add(value);
+                    case "--report" -> options.report = Paths.get(value);
+                    case "--max-p99-ms" -> options.maxP99Ms = Double.parseDouble(value);
+                    case "--max-error-rate" -> options.maxErrorRate = Double.parseDouble(value);
+                    default -> {
+                        return null;
+                    }
+                }
+            }
+            return options.rate > 0 && options.durationSeconds > 0 && options.synthesize > 0 ? options : null;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.chatbot;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Workers for {@code /chat/stream} turns. Both the threads and the queue are
+ * bounded, so a burst of streams cannot pile up unbounded work behind admission;
+ * a turn the executor refuses is answered with a 503 like a shed one.
+ */
+@Configuration
+public class ChatStreamConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor chatStreamExecutor(@Value("${chat.stream.threads:0}") int threads,
+                                                     @Value("${chat.stream.queue-capacity:100}") int queueCapacity) {
+        int size = threads > 0 ? threads : 2 * Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("chat-stream-");
+        executor.initialize();
+        return executor;
+    }
+}
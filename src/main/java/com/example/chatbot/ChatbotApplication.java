@@ -2,8 +2,15 @@ package com.example.chatbot;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisReactiveAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisRepositoriesAutoConfiguration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+// Redis is only the remote session backend's; ConversationStateStoreConfig sets it up when selected
+@SpringBootApplication(exclude = {RedisAutoConfiguration.class, RedisReactiveAutoConfiguration.class,
+        RedisRepositoriesAutoConfiguration.class})
+@EnableScheduling
 public class ChatbotApplication {
     public static void main(String[] args) {
         SpringApplication.run(ChatbotApplication.class, args);
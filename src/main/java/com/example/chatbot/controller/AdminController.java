@@ -0,0 +1,163 @@
+package com.example.chatbot.controller;
+
+import com.example.chatbot.service.ClassificationCascade;
+import com.example.chatbot.service.DoccatModelTrainer;
+import com.example.chatbot.service.KnowledgeBase;
+import com.example.chatbot.service.KnowledgeCatalog;
+import com.example.chatbot.service.ModelBundle;
+import com.example.chatbot.service.ModelRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operator endpoints. Every call must carry the {@code X-Admin-Token} header matching
+ * {@code admin.token}; when that property is empty the endpoints are disabled.
+ */
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminController.class);
+
+    private static final String TRAINING_FILE = "/training.txt";
+
+    @Autowired
+    private ModelRegistry modelRegistry;
+
+    @Autowired
+    private KnowledgeBase knowledgeBase;
+
+    @Autowired
+    private ClassificationCascade cascade;
+
+    @Value("${admin.token:}")
+    private String adminToken;
+
+    @GetMapping("/models")
+    public Map<String, Object> models(@RequestHeader(value = "X-Admin-Token", required = false) String token) {
+        checkToken(token);
+        List<Map<String, Object>> versions = new ArrayList<>();
+        for (ModelBundle.Descriptor bundle : modelRegistry.getHistory()) {
+            versions.add(describe(bundle));
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("current", describe(modelRegistry.current().describe()));
+        body.put("retraining", modelRegistry.isRetraining());
+        body.put("lastRetrain", modelRegistry.getLastResult());
+        body.put("history", versions);
+        return body;
+    }
+
+    // Body: "category text" lines; an empty body retrains from the bundled training.txt
+    @PostMapping(value = "/models/retrain", consumes = {MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<Map<String, Object>> retrain(@RequestHeader(value = "X-Admin-Token", required = false) String token,
+                                                       @RequestBody(required = false) byte[] trainingData) throws IOException {
+        checkToken(token);
+        String source = "upload";
+        if (trainingData == null || trainingData.length == 0) {
+            try (InputStream in = getClass().getResourceAsStream(TRAINING_FILE)) {
+                trainingData = in.readAllBytes();
+            }
+            source = "classpath";
+        }
+        if (modelRegistry.retrain(trainingData, source) == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A retrain is already running");
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", "accepted");
+        body.put("currentVersion", modelRegistry.current().getVersion());
+        return ResponseEntity.accepted().body(body);
+    }
+
+    @GetMapping("/knowledge-base")
+    public Map<String, Object> knowledgeBase(@RequestHeader(value = "X-Admin-Token", required = false) String token) {
+        checkToken(token);
+        return describe(knowledgeBase.getSnapshot());
+    }
+
+    // Recompiles every knowledge-base document; a bad document leaves the current catalogs live
+    @PostMapping("/knowledge-base/reload")
+    public Map<String, Object> reloadKnowledgeBase(@RequestHeader(value = "X-Admin-Token", required = false) String token) {
+        checkToken(token);
+        try {
+            return describe(knowledgeBase.reload());
+        } catch (IOException e) {
+            log.warn("Knowledge base reload failed: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage(), e);
+        }
+    }
+
+    // Body: labeled "category text" lines; an empty body evaluates the bundled training.txt,
+    // which the phrase tier knows by heart, so pass held-out data for a fair accuracy figure
+    @PostMapping(value = "/cascade/evaluate", consumes = {MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ClassificationCascade.Evaluation evaluateCascade(@RequestHeader(value = "X-Admin-Token", required = false) String token,
+                                                            @RequestBody(required = false) byte[] labeledData) throws IOException {
+        checkToken(token);
+        if (labeledData == null || labeledData.length == 0) {
+            try (InputStream in = getClass().getResourceAsStream(TRAINING_FILE)) {
+                labeledData = in.readAllBytes();
+            }
+        }
+        try {
+            return cascade.evaluate(modelRegistry.current(), knowledgeBase.current(),
+                    DoccatModelTrainer.readSamples(new ByteArrayInputStream(labeledData)));
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    private void checkToken(String token) {
+        if (adminToken.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Admin endpoints are disabled");
+        }
+        if (token == null || !MessageDigest.isEqual(adminToken.getBytes(StandardCharsets.UTF_8),
+                token.getBytes(StandardCharsets.UTF_8))) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid admin token");
+        }
+    }
+
+    private Map<String, Object> describe(ModelBundle.Descriptor bundle) {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("version", bundle.version());
+        info.put("source", bundle.source());
+        info.put("createdAt", bundle.createdAt().toString());
+        info.put("heldOutAccuracy", Double.isNaN(bundle.heldOutAccuracy()) ? null : bundle.heldOutAccuracy());
+        info.put("classifier", bundle.classifier());
+        return info;
+    }
+
+    private Map<String, Object> describe(KnowledgeBase.Snapshot snapshot) {
+        List<Map<String, Object>> locales = new ArrayList<>();
+        for (KnowledgeCatalog catalog : snapshot.catalogs().values()) {
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("locale", catalog.getLocale());
+            info.put("intents", catalog.getIntentCount());
+            info.put("symptoms", catalog.getSymptomCount());
+            info.put("phrases", catalog.getLexicon().getPhraseCount());
+            locales.add(info);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("version", snapshot.version());
+        body.put("loadedAt", snapshot.loadedAt().toString());
+        body.put("defaultLocale", snapshot.defaultCatalog().getLocale());
+        body.put("locales", locales);
+        return body;
+    }
+}
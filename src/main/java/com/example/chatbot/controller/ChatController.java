@@ -1,8 +1,27 @@
 package com.example.chatbot.controller;
 
+import com.example.chatbot.service.AdmissionLimiter;
+import com.example.chatbot.service.BatchChatService;
+import com.example.chatbot.service.ChatTurn;
+import com.example.chatbot.service.EngineUnavailableException;
 import com.example.chatbot.service.NLPService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
 
 @RestController
 @RequestMapping("/chat")
@@ -11,19 +30,148 @@ public class ChatController {
     @Autowired
     private NLPService nlpService;
 
+    @Autowired
+    private BatchChatService batchChatService;
+
+    @Autowired
+    private AdmissionLimiter admission;
+
+    // Bounded threads and queue; see ChatStreamConfig
+    @Autowired
+    @Qualifier("chatStreamExecutor")
+    private AsyncTaskExecutor streamExecutor;
+
+    @Value("${chat.stream.timeout-ms:30000}")
+    private long streamTimeoutMs;
+
+    // Overloaded: 503 with Retry-After right away rather than queueing behind the models
     @PostMapping
-    public ChatResponse chat(@RequestBody ChatRequest request) {
-        String reply = nlpService.generateResponse(request.getMessage());
-        return new ChatResponse(reply);
+    public ResponseEntity<ChatResponse> chat(@RequestBody ChatRequest request,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT_LANGUAGE, required = false) String acceptLanguage) {
+        if (!admit(request)) {
+            return overloaded();
+        }
+        long start = System.nanoTime();
+        try {
+            String reply = nlpService.generateResponse(request.getMessage(), request.getSessionId(),
+                    locale(request, acceptLanguage));
+            return ResponseEntity.ok(new ChatResponse(reply));
+        } finally {
+            admission.release(start);
+        }
+    }
+
+    // Server-Sent Events: one "part" event ({"reply": fragment}) per reply fragment as it is produced, then "done"
+    // Admitted before the stream opens, so a shed turn is a plain 503 rather than a broken stream
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> chatStream(@RequestBody ChatRequest request,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT_LANGUAGE, required = false) String acceptLanguage) {
+        if (!admit(request)) {
+            return overloaded();
+        }
+        String locale = locale(request, acceptLanguage);
+        long start = System.nanoTime();
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        Runnable turn = () -> {
+            try {
+                nlpService.generateResponse(request.getMessage(), request.getSessionId(), locale, part -> {
+                    try {
+                        // JSON payload: SSE clients strip a leading space from plain data lines
+                        emitter.send(SseEmitter.event().name("part").data(new ChatResponse(part.toString()), MediaType.APPLICATION_JSON));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                emitter.send(SseEmitter.event().name("done").data(""));
+                emitter.complete();
+            } catch (Exception e) {
+                // Usually the client went away; nothing more can be sent
+                emitter.completeWithError(e);
+            } finally {
+                admission.release(start);
+            }
+        };
+        try {
+            streamExecutor.execute(turn);
+        } catch (TaskRejectedException e) {
+            // Every stream worker is busy and the queue is full: shed like admission does
+            admission.release(start);
+            return overloaded();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    // Replies come back in request order; turns of the same session run in order.
+    // Admitted as one unit before any turn runs, so a shed batch has changed no session
+    @PostMapping("/batch")
+    public ResponseEntity<List<ChatResponse>> chatBatch(@RequestBody List<ChatRequest> requests,
+                                        @RequestHeader(value = HttpHeaders.ACCEPT_LANGUAGE, required = false) String acceptLanguage) {
+        if (requests.size() > batchChatService.getMaxBatchSize()) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "At most " + batchChatService.getMaxBatchSize() + " messages per batch");
+        }
+        List<ChatTurn> turns = new ArrayList<>(requests.size());
+        for (ChatRequest request : requests) {
+            if (request == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch elements must be objects, not null");
+            }
+            turns.add(new ChatTurn(request.getSessionId(), request.getMessage(), locale(request, acceptLanguage)));
+        }
+        if (!admission.acquire(AdmissionLimiter.Priority.NEW)) {
+            return overloaded();
+        }
+        List<String> replies;
+        try {
+            replies = batchChatService.generateResponses(turns);
+        } finally {
+            admission.releaseUnmeasured();
+        }
+        List<ChatResponse> responses = new ArrayList<>(replies.size());
+        for (String reply : replies) {
+            responses.add(new ChatResponse(reply));
+        }
+        return ResponseEntity.ok(responses);
+    }
+
+    // Every NLP engine stayed busy: same answer as admission shedding
+    @ExceptionHandler(EngineUnavailableException.class)
+    public ResponseEntity<Void> engineUnavailable() {
+        return overloaded();
+    }
+
+    // The request's own locale wins over the Accept-Language header
+    private static String locale(ChatRequest request, String acceptLanguage) {
+        return request.getLocale() != null && !request.getLocale().isBlank() ? request.getLocale() : acceptLanguage;
+    }
+
+    private boolean admit(ChatRequest request) {
+        AdmissionLimiter.Priority priority = nlpService.isAwaitingDetails(request.getSessionId())
+                ? AdmissionLimiter.Priority.FLOW : AdmissionLimiter.Priority.NEW;
+        return admission.acquire(priority);
+    }
+
+    private <T> ResponseEntity<T> overloaded() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(admission.getRetryAfterSeconds()))
+                .build();
     }
 
     // DTO classes
     public static class ChatRequest {
+        private String sessionId;
         private String message;
+        private String locale;
         public ChatRequest() {}
         public ChatRequest(String message) { this.message = message; }
+        public ChatRequest(String sessionId, String message) { this.sessionId = sessionId; this.message = message; }
+        // Identifies the conversation; requests without one share a default session
+        public String getSessionId() { return sessionId; }
+        public void setSessionId(String sessionId) { this.sessionId = sessionId; }
         public String getMessage() { return message; }
         public void setMessage(String message) { this.message = message; }
+        // Knowledge-base locale such as "fr" or "fr-CA"; without one, Accept-Language or the default locale
+        public String getLocale() { return locale; }
+        public void setLocale(String locale) { this.locale = locale; }
     }
 
     public static class ChatResponse {
@@ -0,0 +1,288 @@
+package com.example.chatbot.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control for chat turns. At most {@link #getLimit()} turns run at once;
+ * the rest wait in a short bounded queue and are shed when it is full or they have
+ * waited too long, so a spike is turned away fast instead of piling up on request
+ * threads that all contend for the same engines.
+ * <p>
+ * The limit adapts to the latency of admitted turns, as in the gradient algorithm:
+ * a slow moving average is the no-load baseline, and whenever recent turns run
+ * slower than {@code tolerance} times that baseline the limit shrinks in proportion
+ * (at most halving per step, smoothed), otherwise it grows by about its square root.
+ * The square-root headroom is only added when latency is within tolerance, so under
+ * sustained overload the limit keeps shrinking down to {@code min-limit}. It only
+ * grows while at least half of it is in use, so an idle service does not drift to
+ * {@code max-limit}.
+ * <p>
+ * Turns of sessions in the middle of a symptom flow ({@link Priority#FLOW}) are
+ * admitted before new ones and, when the queue is full, displace the newest waiting
+ * {@link Priority#NEW} turn rather than being shed themselves.
+ */
+@Component
+public class AdmissionLimiter {
+
+    public enum Priority {
+        /** The session is waiting for symptom details. */
+        FLOW,
+        NEW
+    }
+
+    public enum ShedReason {
+        QUEUE_FULL("queue-full"),
+        TIMEOUT("timeout"),
+        DISPLACED("displaced"),
+        INTERRUPTED("interrupted");
+
+        private final String tag;
+
+        ShedReason(String tag) {
+            this.tag = tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    // Weight of one turn in the baseline and in the recent average
+    private static final double BASELINE_WEIGHT = 0.01;
+    private static final double RECENT_WEIGHT = 0.25;
+
+    private static final int WAITING = 0;
+    private static final int ADMITTED = 1;
+    private static final int SHED = 2;
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+    private final double tolerance;
+    private final double smoothing;
+    private final int retryAfterSeconds;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Written under lock; volatile so the metric gauges can read them without it
+    private volatile double limit;
+    private volatile int inFlight;
+    // Guarded by lock
+    private double baselineNanos;
+    private double recentNanos;
+    private final ArrayDeque<Waiter> flowQueue = new ArrayDeque<>();
+    private final ArrayDeque<Waiter> newQueue = new ArrayDeque<>();
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder[] shed = new LongAdder[ShedReason.values().length];
+
+    public AdmissionLimiter(@Value("${chat.admission.enabled:true}") boolean enabled,
+                            @Value("${chat.admission.initial-limit:0}") int initialLimit,
+                            @Value("${chat.admission.min-limit:2}") int minLimit,
+                            @Value("${chat.admission.max-limit:256}") int maxLimit,
+                            @Value("${chat.admission.max-queue:100}") int maxQueue,
+                            @Value("${chat.admission.max-wait-ms:200}") long maxWaitMs,
+                            @Value("${chat.admission.tolerance:1.5}") double tolerance,
+                            @Value("${chat.admission.smoothing:0.2}") double smoothing,
+                            @Value("${chat.admission.retry-after-seconds:1}") int retryAfterSeconds) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("chat.admission needs 1 <= min-limit <= max-limit");
+        }
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = Math.max(0, maxQueue);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMs));
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.retryAfterSeconds = retryAfterSeconds;
+        int initial = initialLimit > 0 ? initialLimit : 2 * Runtime.getRuntime().availableProcessors();
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initial));
+        for (ShedReason reason : ShedReason.values()) {
+            shed[reason.ordinal()] = new LongAdder();
+        }
+    }
+
+    /**
+     * Admits a turn, waiting up to {@code max-wait-ms} for a slot. Returns false if it
+     * was shed; otherwise the caller must call {@link #release} once the turn is done.
+     */
+    public boolean acquire(Priority priority) {
+        if (!enabled) {
+            return true;
+        }
+        Waiter waiter;
+        lock.lock();
+        try {
+            // Only bypass the queue when nobody is waiting, so waiters keep their turn
+            if (inFlight < (int) limit && flowQueue.isEmpty() && newQueue.isEmpty()) {
+                inFlight++;
+                admitted.increment();
+                return true;
+            }
+            if (maxWaitNanos == 0) {
+                shed[ShedReason.QUEUE_FULL.ordinal()].increment();
+                return false;
+            }
+            if (flowQueue.size() + newQueue.size() >= maxQueue) {
+                if (priority != Priority.FLOW || newQueue.isEmpty()) {
+                    shed[ShedReason.QUEUE_FULL.ordinal()].increment();
+                    return false;
+                }
+                Waiter displaced = newQueue.pollLast();
+                displaced.state = SHED;
+                shed[ShedReason.DISPLACED.ordinal()].increment();
+                LockSupport.unpark(displaced.thread);
+            }
+            waiter = new Waiter(Thread.currentThread());
+            (priority == Priority.FLOW ? flowQueue : newQueue).addLast(waiter);
+        } finally {
+            lock.unlock();
+        }
+        return await(waiter, priority);
+    }
+
+    /** Ends an admitted turn that started at {@code startNanos} and feeds its latency into the limit. */
+    public void release(long startNanos) {
+        release(Math.max(1, System.nanoTime() - startNanos), true);
+    }
+
+    /**
+     * Ends an admitted unit whose running time is not the latency of one turn, such
+     * as a whole batch, leaving the limit as it is.
+     */
+    public void releaseUnmeasured() {
+        release(0, false);
+    }
+
+    private void release(long latencyNanos, boolean measured) {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            inFlight--;
+            if (measured) {
+                updateLimit(latencyNanos);
+            }
+            while (inFlight < (int) limit) {
+                Waiter next = flowQueue.pollFirst();
+                if (next == null) {
+                    next = newQueue.pollFirst();
+                }
+                if (next == null) {
+                    break;
+                }
+                next.state = ADMITTED;
+                inFlight++;
+                admitted.increment();
+                LockSupport.unpark(next.thread);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return flowQueue.size() + newQueue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getAdmittedCount() {
+        return admitted.sum();
+    }
+
+    public long getShedCount(ShedReason reason) {
+        return shed[reason.ordinal()].sum();
+    }
+
+    private boolean await(Waiter waiter, Priority priority) {
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while (waiter.state == WAITING) {
+            // parkNanos returns at once while the interrupt flag is set, so clear it and give up
+            if (Thread.interrupted()) {
+                abandon(waiter, priority, ShedReason.INTERRUPTED);
+                Thread.currentThread().interrupt();
+                break;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                abandon(waiter, priority, ShedReason.TIMEOUT);
+                break;
+            }
+            LockSupport.parkNanos(this, remaining);
+        }
+        return waiter.state == ADMITTED;
+    }
+
+    // Unless release() admitted it in the meantime, takes the waiter out of its queue and sheds it
+    private void abandon(Waiter waiter, Priority priority, ShedReason reason) {
+        lock.lock();
+        try {
+            if (waiter.state == WAITING) {
+                (priority == Priority.FLOW ? flowQueue : newQueue).remove(waiter);
+                waiter.state = SHED;
+                shed[reason.ordinal()].increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called under lock after every admitted turn
+    private void updateLimit(long latency) {
+        if (baselineNanos == 0) {
+            baselineNanos = latency;
+            recentNanos = latency;
+            return;
+        }
+        baselineNanos += (latency - baselineNanos) * BASELINE_WEIGHT;
+        recentNanos += (latency - recentNanos) * RECENT_WEIGHT;
+        // After an overload the baseline sits far above recent turns; let it catch up fast
+        if (baselineNanos > 2 * recentNanos) {
+            baselineNanos *= 0.95;
+        }
+        if (inFlight < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baselineNanos / recentNanos));
+        // Headroom only while within tolerance: limit * gradient + sqrt(limit) would stop
+        // shrinking where gradient = 1 - 1/sqrt(limit), about 4 at the steepest gradient
+        double target = gradient < 1.0 ? limit * gradient : limit + Math.sqrt(limit);
+        double next = limit * (1 - smoothing) + target * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    private static final class Waiter {
+        final Thread thread;
+        volatile int state = WAITING;
+
+        Waiter(Thread thread) {
+            this.thread = thread;
+        }
+    }
+}
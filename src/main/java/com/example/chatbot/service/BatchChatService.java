@@ -0,0 +1,100 @@
+package com.example.chatbot.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs many chat turns through {@link NLPService} in parallel. Turns are grouped by
+ * session and each session's turns run sequentially in submission order, so
+ * multi-turn flows behave exactly as if the messages had arrived one by one;
+ * different sessions are spread across a dedicated fork-join pool.
+ * <p>
+ * If a turn fails, sessions that have not started are skipped and running ones stop
+ * before their next turn. The call returns only once every session task has ended,
+ * then rethrows the first failure.
+ * <p>
+ * Callers admit the batch as a whole before calling in, so it either runs in full
+ * or not at all; nothing here waits for admission.
+ */
+@Service
+public class BatchChatService {
+
+    @Autowired
+    private NLPService nlpService;
+
+    private final ForkJoinPool pool;
+    private final int maxBatchSize;
+
+    public BatchChatService(@Value("${chat.batch.parallelism:0}") int parallelism,
+                            @Value("${chat.batch.max-size:5000}") int maxBatchSize) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /** Returns one reply per turn, in the same order as {@code turns}. */
+    public List<String> generateResponses(List<ChatTurn> turns) {
+        if (turns.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch of " + turns.size() + " exceeds the limit of " + maxBatchSize);
+        }
+
+        // Group turn indexes by session, keeping each session's submission order
+        Map<String, List<Integer>> sessions = new LinkedHashMap<>();
+        for (int i = 0; i < turns.size(); i++) {
+            String sessionId = turns.get(i).sessionId();
+            String key = (sessionId == null || sessionId.isBlank()) ? null : sessionId;
+            sessions.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+        }
+
+        String[] replies = new String[turns.size()];
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(sessions.size());
+        for (List<Integer> indexes : sessions.values()) {
+            tasks.add(pool.submit(() -> {
+                for (int i : indexes) {
+                    if (failure.get() != null) {
+                        return;
+                    }
+                    ChatTurn turn = turns.get(i);
+                    try {
+                        replies[i] = nlpService.generateResponse(turn.message(), turn.sessionId(), turn.locale());
+                    } catch (RuntimeException | Error e) {
+                        failure.compareAndSet(null, e);
+                        return;
+                    }
+                }
+            }));
+        }
+        // Wait for every task, so no turn of this batch is still running when the call returns
+        for (ForkJoinTask<?> task : tasks) {
+            task.quietlyJoin();
+        }
+        Throwable failed = failure.get();
+        if (failed instanceof RuntimeException e) {
+            throw e;
+        }
+        if (failed instanceof Error e) {
+            throw e;
+        }
+        return Arrays.asList(replies);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
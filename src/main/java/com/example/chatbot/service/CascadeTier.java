@@ -0,0 +1,26 @@
+package com.example.chatbot.service;
+
+/**
+ * Tiers of the {@link ClassificationCascade}, cheapest first. A turn is classified
+ * by the first enabled tier that is sure of its answer.
+ */
+public enum CascadeTier {
+    /** The normalized message is a phrase of the training set. */
+    PHRASE("phrase"),
+    /** A short message with exactly one unambiguous intent keyword. */
+    RULE("rule"),
+    /** Classification cache, then the doccat categorizer. */
+    MODEL("model"),
+    /** Highest-priority intent keyword; used when the model tier is off or has no model. */
+    KEYWORD("keyword");
+
+    private final String tag;
+
+    CascadeTier(String tag) {
+        this.tag = tag;
+    }
+
+    public String tag() {
+        return tag;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.chatbot.service;
+
+/**
+ * One user message addressed to a session; sessionId may be null for the default
+ * session and locale null for the default knowledge-base locale.
+ */
+public record ChatTurn(String sessionId, String message, String locale) {
+
+    public ChatTurn(String sessionId, String message) {
+        this(sessionId, message, null);
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.chatbot.service;
+
+/** Intent category chosen for a message, the confidence in it and the cascade tier that chose it. */
+public record Classification(String category, double confidence, CascadeTier tier) {
+}
@@ -0,0 +1,185 @@
+package com.example.chatbot.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, concurrent cache of categorizer results keyed by normalized input, so
+ * the handful of phrases that make up most traffic skip tokenization and doccat.
+ * Caffeine's W-TinyLFU policy keeps frequent phrases resident while one-off
+ * messages pass through without flushing them.
+ *
+ * Entries are tagged with the model version they were computed under and only
+ * served to lookups for that same version, so a request still running on an old
+ * model bundle can never leak its results into traffic on the new one.
+ *
+ * Misses are coalesced: while one request classifies an input, identical concurrent
+ * requests on the same model version wait for its result instead of running the
+ * model again, so a burst of the same message costs one classification. A waiter
+ * gives up after {@code coalesce-wait-ms} and classifies the input itself, so a
+ * stalled leader never holds the others past that.
+ */
+@Component
+public class ClassificationCache {
+
+    private final boolean enabled;
+    private final Cache<String, Entry> cache;
+    private final boolean coalesce;
+    private final long coalesceWaitMs;
+    // Classifications in progress, keyed by normalized input
+    private final ConcurrentMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    public ClassificationCache(@Value("${nlp.classification-cache.enabled:true}") boolean enabled,
+                               @Value("${nlp.classification-cache.max-size:10000}") long maxSize,
+                               @Value("${nlp.classification-cache.coalesce:true}") boolean coalesce,
+                               @Value("${nlp.classification-cache.coalesce-wait-ms:100}") long coalesceWaitMs) {
+        this.enabled = enabled;
+        this.coalesce = coalesce;
+        this.coalesceWaitMs = Math.max(0, coalesceWaitMs);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+    }
+
+    /** Returns the classification cached for this model version, or null on a miss. */
+    public Classification get(String normalizedInput, long modelVersion) {
+        if (!enabled || normalizedInput.isEmpty()) {
+            return null;
+        }
+        Entry entry = cache.getIfPresent(normalizedInput);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.modelVersion != modelVersion) {
+            return null;
+        }
+        return entry.classification;
+    }
+
+    public void put(String normalizedInput, Classification classification, long modelVersion) {
+        if (enabled && !normalizedInput.isEmpty()) {
+            cache.put(normalizedInput, new Entry(classification, modelVersion));
+        }
+    }
+
+    /**
+     * Waits for a classification of this input that another request is already
+     * computing on the same model version and returns it. Returns null if there is
+     * none, or if it does not arrive within {@code coalesce-wait-ms}: the caller then
+     * classifies the input itself and must call {@link #finish} with the result (or
+     * null on failure), which also releases anyone waiting on it.
+     */
+    public Classification awaitInFlight(String normalizedInput, long modelVersion) {
+        if (!coalesce || normalizedInput.isEmpty()) {
+            return null;
+        }
+        Flight other = inFlight.putIfAbsent(normalizedInput, new Flight(modelVersion));
+        if (other == null || other.modelVersion != modelVersion) {
+            return null;
+        }
+        try {
+            // Null if the leader failed; the waiter then classifies on its own
+            Classification result = other.result.get(coalesceWaitMs, TimeUnit.MILLISECONDS);
+            if (result != null) {
+                coalesced.increment();
+            }
+            return result;
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            // Flights are only ever completed normally
+            return null;
+        }
+    }
+
+    /** Caches a classification begun after {@link #awaitInFlight} returned null and hands it to waiters. */
+    public void finish(String normalizedInput, Classification classification, long modelVersion) {
+        if (classification != null) {
+            put(normalizedInput, classification, modelVersion);
+        }
+        if (!coalesce || normalizedInput.isEmpty()) {
+            return;
+        }
+        Flight flight = inFlight.get(normalizedInput);
+        // Only the leader's own flight: waiters whose leader failed finish without one
+        if (flight != null && flight.owner == Thread.currentThread() && inFlight.remove(normalizedInput, flight)) {
+            flight.result.complete(classification);
+        }
+    }
+
+    /** Requests that took another request's classification instead of running the model. */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /** Drops every entry; called when a new model version goes live. */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Lowercases and collapses every run of whitespace and punctuation into a single
+     * space, so "Hi!", "hi" and "  HI . " share one cache entry.
+     */
+    public static String normalize(String input) {
+        StringBuilder sb = new StringBuilder(input.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && sb.length() > 0) {
+                    sb.append(' ');
+                }
+                pendingSpace = false;
+                sb.append(Character.toLowerCase(c));
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static final class Entry {
+        final Classification classification;
+        final long modelVersion;
+
+        Entry(Classification classification, long modelVersion) {
+            this.classification = classification;
+            this.modelVersion = modelVersion;
+        }
+    }
+
+    private static final class Flight {
+        final long modelVersion;
+        final Thread owner = Thread.currentThread();
+        final CompletableFuture<Classification> result = new CompletableFuture<>();
+
+        Flight(long modelVersion) {
+            this.modelVersion = modelVersion;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.chatbot.service;
+
+import jakarta.annotation.PostConstruct;
+import opennlp.tools.doccat.DocumentSample;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides which tiers classify a turn ({@code nlp.cascade.tiers}), cheapest first:
+ * an exact match against the training phrases, then a high-precision keyword rule,
+ * then the classification cache and doccat model for whatever is still ambiguous.
+ * The cheap tiers only answer when they are sure, so most greetings, thanks and
+ * goodbyes never reach the model. NER, when enabled, only runs for turns already
+ * classified as {@code symptom}. {@link #evaluate} measures how much model work the
+ * cascade skips and what that does to accuracy on a labeled set.
+ */
+@Component
+public class ClassificationCascade {
+
+    private static final String TIER_NER = "ner";
+
+    // Comma-separated, from: phrase, rule, model, ner
+    @Value("${nlp.cascade.tiers:phrase,rule,model,ner}")
+    private String tierNames;
+
+    // Intents the rule tier may decide; the rest always go to the model
+    @Value("${nlp.cascade.rule-categories:greeting,thanks,goodbye}")
+    private String ruleCategoryNames;
+
+    // Longer messages are left to the model even if they contain a single keyword
+    @Value("${nlp.cascade.rule-max-words:4}")
+    private int ruleMaxWords;
+
+    @Value("${nlp.cascade.phrase-confidence:1.0}")
+    private double phraseConfidence;
+
+    @Value("${nlp.cascade.rule-confidence:0.95}")
+    private double ruleConfidence;
+
+    // Model answers below this are rejected with a "please rephrase" reply
+    @Value("${nlp.cascade.min-confidence:0.5}")
+    private double minConfidence;
+
+    private Set<CascadeTier> tiers;
+    private Set<String> ruleCategories;
+    private boolean nerEnabled;
+
+    @PostConstruct
+    public void init() {
+        tiers = EnumSet.noneOf(CascadeTier.class);
+        for (String name : tierNames.split(",")) {
+            name = name.trim().toLowerCase(Locale.ROOT);
+            if (name.isEmpty()) continue;
+            if (TIER_NER.equals(name)) {
+                nerEnabled = true;
+                continue;
+            }
+            tiers.add(tierOf(name));
+        }
+        String categories = ruleCategoryNames.trim();
+        ruleCategories = categories.isEmpty() ? Set.of() : Set.copyOf(Arrays.asList(categories.split("\\s*,\\s*")));
+    }
+
+    /**
+     * Classification from the phrase or rule tier, or null if neither is enabled and
+     * sure of its answer, in which case the turn goes to the model.
+     */
+    public Classification shortCircuit(ModelBundle models, String normalizedInput, Lexicon.Match keywords) {
+        if (tiers.contains(CascadeTier.PHRASE)) {
+            String category = models.getPhraseTable().lookup(normalizedInput);
+            if (category != null) {
+                return new Classification(category, phraseConfidence, CascadeTier.PHRASE);
+            }
+        }
+        if (tiers.contains(CascadeTier.RULE) && wordCount(normalizedInput) <= ruleMaxWords) {
+            String category = keywords.getUnambiguousIntent();
+            if (category != null && ruleCategories.contains(category)) {
+                return new Classification(category, ruleConfidence, CascadeTier.RULE);
+            }
+        }
+        return null;
+    }
+
+    public boolean isModelEnabled() {
+        return tiers.contains(CascadeTier.MODEL);
+    }
+
+    public boolean isNerEnabled() {
+        return nerEnabled;
+    }
+
+    public double getMinConfidence() {
+        return minConfidence;
+    }
+
+    /**
+     * Runs every sample through the cascade as configured and, for comparison, through
+     * the model alone. Nothing is cached or counted in the live metrics.
+     */
+    public Evaluation evaluate(ModelBundle models, KnowledgeCatalog kb, List<DocumentSample> samples) {
+        Map<CascadeTier, long[]> perTier = new LinkedHashMap<>();
+        long correct = 0;
+        long rejected = 0;
+        long modelCorrect = 0;
+        long modelRejected = 0;
+        NLPEnginePool pool = models.getEnginePool();
+        NLPEngine engine = pool.borrow();
+        boolean hasModel = engine.hasCategorizer();
+        try {
+            for (DocumentSample sample : samples) {
+                String text = String.join(" ", sample.getText());
+                InputText input = engine.normalize(text);
+                Lexicon.Match keywords = kb.getLexicon().scan(input);
+
+                Classification model = null;
+                if (hasModel) {
+                    double[] outcomes = engine.categorizeInput();
+                    model = new Classification(engine.getBestCategory(outcomes), max(outcomes), CascadeTier.MODEL);
+                    if (model.category().equals(sample.getCategory())) modelCorrect++;
+                    if (model.confidence() < minConfidence) modelRejected++;
+                }
+
+                Classification result = shortCircuit(models, input.cacheKey(), keywords);
+                if (result == null) {
+                    result = isModelEnabled() && model != null
+                            ? model
+                            : new Classification(keywords.getIntent(), 0.0, CascadeTier.KEYWORD);
+                }
+                boolean hit = result.category().equals(sample.getCategory());
+                long[] counts = perTier.computeIfAbsent(result.tier(), t -> new long[2]);
+                counts[0]++;
+                if (hit) {
+                    counts[1]++;
+                    correct++;
+                }
+                if (result.tier() == CascadeTier.MODEL && result.confidence() < minConfidence) rejected++;
+            }
+        } finally {
+            pool.release(engine);
+        }
+
+        int n = samples.size();
+        Map<String, TierResult> tierResults = new LinkedHashMap<>();
+        for (CascadeTier tier : CascadeTier.values()) {
+            long[] counts = perTier.get(tier);
+            if (counts != null) {
+                tierResults.put(tier.tag(), new TierResult(counts[0], ratio(counts[0], n), ratio(counts[1], counts[0])));
+            }
+        }
+        long modelTurns = perTier.containsKey(CascadeTier.MODEL) ? perTier.get(CascadeTier.MODEL)[0] : 0;
+        return new Evaluation(n, models.getVersion(), ratio(correct, n), rejected,
+                hasModel ? ratio(modelCorrect, n) : null, hasModel ? modelRejected : null,
+                ratio(n - modelTurns, n), tierResults);
+    }
+
+    private static CascadeTier tierOf(String name) {
+        for (CascadeTier tier : CascadeTier.values()) {
+            if (tier != CascadeTier.KEYWORD && tier.tag().equals(name)) {
+                return tier;
+            }
+        }
+        throw new IllegalArgumentException("Unknown nlp.cascade.tiers entry '" + name
+                + "'; expected phrase, rule, model or ner");
+    }
+
+    private static int wordCount(String normalizedInput) {
+        if (normalizedInput.isEmpty()) {
+            return 0;
+        }
+        int words = 1;
+        for (int i = 0; i < normalizedInput.length(); i++) {
+            if (normalizedInput.charAt(i) == ' ') words++;
+        }
+        return words;
+    }
+
+    static double max(double[] values) {
+        double max = 0.0;
+        for (double value : values) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+
+    private static double ratio(long count, long total) {
+        return total == 0 ? 0.0 : (double) count / total;
+    }
+
+    /**
+     * Outcome of {@link #evaluate}. Accuracy compares categories only; {@code rejected}
+     * counts model answers below {@code min-confidence}, which users see as "please
+     * rephrase". The {@code modelOnly} figures are null when no doccat model is loaded.
+     */
+    public record Evaluation(int samples, long modelVersion, double accuracy, long rejected,
+                             Double modelOnlyAccuracy, Long modelOnlyRejected, double modelSkipped,
+                             Map<String, TierResult> tiers) {
+    }
+
+    /** Turns a tier classified, their share of all samples and how many it got right. */
+    public record TierResult(long hits, double share, double accuracy) {
+    }
+}
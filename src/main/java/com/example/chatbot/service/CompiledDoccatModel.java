@@ -0,0 +1,251 @@
+package com.example.chatbot.service;
+
+import opennlp.tools.doccat.BagOfWordsFeatureGenerator;
+import opennlp.tools.doccat.DoccatModel;
+import opennlp.tools.doccat.DocumentCategorizerME;
+import opennlp.tools.doccat.FeatureGenerator;
+import opennlp.tools.ml.model.AbstractModel;
+import opennlp.tools.ml.model.Context;
+import opennlp.tools.ml.model.MaxentModel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inference-only copy of a bag-of-words maxent {@link DoccatModel}. OpenNLP builds a
+ * "bow=token" String per token on every call and looks each one up in a map of
+ * boxed indexes; here the weights are compiled into one dense {@code float[]} matrix
+ * (a row of per-outcome weights per known token) behind an open-addressing table
+ * keyed by the token itself, so scoring a message allocates nothing and touches
+ * only primitive arrays. Scores are the same softmax over summed weights that
+ * {@code GISModel} computes, up to float rounding of the weights.
+ * <p>
+ * Immutable and thread-safe; callers pass their own score array.
+ */
+public final class CompiledDoccatModel {
+
+    private static final String BOW_PREFIX = "bow=";
+
+    private final String[] outcomes;
+    private final int outcomeCount;
+    // Row r holds the weights of token r for outcomes 0..outcomeCount-1
+    private final float[] weights;
+    // Open-addressing table: token at slot i has row rows[i]; null marks an empty slot
+    private final String[] keys;
+    private final int[] rows;
+    private final int mask;
+    private final double tolerance;
+
+    private CompiledDoccatModel(String[] outcomes, String[] tokens, float[] weights, double tolerance) {
+        this.outcomes = outcomes;
+        this.outcomeCount = outcomes.length;
+        this.weights = weights;
+        this.tolerance = tolerance;
+        // At most half full keeps probe sequences short
+        int capacity = Integer.highestOneBit(Math.max(2, tokens.length * 2) - 1) << 1;
+        keys = new String[capacity];
+        rows = new int[capacity];
+        mask = capacity - 1;
+        for (int row = 0; row < tokens.length; row++) {
+            int slot = slot(tokens[row].hashCode());
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = tokens[row];
+            rows[slot] = row;
+        }
+    }
+
+    /**
+     * Compiles {@code model}, or returns null if it uses anything but the plain
+     * bag-of-words feature generator and a maxent model, which this class can't score.
+     * {@code tolerance} is the largest per-outcome difference from OpenNLP that
+     * {@link #matches} accepts.
+     */
+    public static CompiledDoccatModel compile(DoccatModel model, double tolerance) {
+        FeatureGenerator[] generators = model.getFactory().getFeatureGenerators();
+        if (generators.length != 1 || generators[0].getClass() != BagOfWordsFeatureGenerator.class) {
+            return null;
+        }
+        MaxentModel maxent = model.getMaxentModel();
+        if (!(maxent instanceof AbstractModel abstractModel)
+                || abstractModel.getModelType() != AbstractModel.ModelType.Maxent) {
+            return null;
+        }
+        // [parameters per predicate, predicate -> its parameters, outcome names]
+        Object[] data = abstractModel.getDataStructures();
+        @SuppressWarnings("unchecked")
+        Map<String, Context> predicates = (Map<String, Context>) data[1];
+        String[] outcomes = (String[]) data[2];
+
+        List<String> tokens = new ArrayList<>(predicates.size());
+        List<Context> rowParams = new ArrayList<>(predicates.size());
+        for (Map.Entry<String, Context> predicate : predicates.entrySet()) {
+            if (predicate.getKey().startsWith(BOW_PREFIX)) {
+                tokens.add(predicate.getKey().substring(BOW_PREFIX.length()));
+                rowParams.add(predicate.getValue());
+            }
+        }
+        float[] weights = new float[tokens.size() * outcomes.length];
+        for (int row = 0; row < tokens.size(); row++) {
+            int[] active = rowParams.get(row).getOutcomes();
+            double[] values = rowParams.get(row).getParameters();
+            for (int j = 0; j < active.length; j++) {
+                weights[row * outcomes.length + active[j]] = (float) values[j];
+            }
+        }
+        return new CompiledDoccatModel(outcomes.clone(), tokens.toArray(new String[0]), weights, tolerance);
+    }
+
+    public int getOutcomeCount() {
+        return outcomeCount;
+    }
+
+    /**
+     * Outcome probabilities for {@code tokens}, in the model's outcome order, written
+     * into {@code scores} (at least {@link #getOutcomeCount()} long) and returned.
+     * Unknown tokens are ignored and repeated tokens count every time, as in OpenNLP.
+     */
+    public double[] categorize(String[] tokens, double[] scores) {
+        clear(scores);
+        for (String token : tokens) {
+            add(row(token), scores);
+        }
+        return softmax(scores);
+    }
+
+    /**
+     * {@link #categorize(String[], double[])} for tokens given as offsets into
+     * {@code text}: token i is {@code text[spans[2i]..spans[2i + 1])}. No Strings are made.
+     */
+    public double[] categorize(char[] text, int[] spans, int tokenCount, double[] scores) {
+        clear(scores);
+        for (int i = 0; i < tokenCount; i++) {
+            add(row(text, spans[2 * i], spans[2 * i + 1]), scores);
+        }
+        return softmax(scores);
+    }
+
+    /** Name of the highest-scoring outcome; the first one on ties, like OpenNLP. */
+    public String getBestCategory(double[] scores) {
+        int best = 0;
+        for (int o = 1; o < outcomeCount; o++) {
+            if (scores[o] > scores[best]) best = o;
+        }
+        return outcomes[best];
+    }
+
+    /** Whether {@code scores} agree with OpenNLP's {@code reference} within the tolerance. */
+    public boolean matches(double[] reference, double[] scores) {
+        for (int o = 0; o < outcomeCount; o++) {
+            if (Math.abs(reference[o] - scores[o]) > tolerance) {
+                return false;
+            }
+        }
+        return getBestCategory(reference).equals(getBestCategory(scores));
+    }
+
+    /** Scores every document both ways and reports how far the two ever drift apart. */
+    public Verification verify(DoccatModel model, List<String[]> documents) {
+        DocumentCategorizerME reference = new DocumentCategorizerME(model);
+        double[] scores = new double[outcomeCount];
+        double maxDifference = 0.0;
+        int mismatches = 0;
+        for (String[] tokens : documents) {
+            double[] expected = reference.categorize(tokens);
+            categorize(tokens, scores);
+            for (int o = 0; o < outcomeCount; o++) {
+                maxDifference = Math.max(maxDifference, Math.abs(expected[o] - scores[o]));
+            }
+            if (!matches(expected, scores)) mismatches++;
+        }
+        return new Verification(documents.size(), maxDifference, mismatches);
+    }
+
+    private void clear(double[] scores) {
+        for (int o = 0; o < outcomeCount; o++) {
+            scores[o] = 0.0;
+        }
+    }
+
+    private void add(int row, double[] scores) {
+        if (row < 0) {
+            return;
+        }
+        int base = row * outcomeCount;
+        for (int o = 0; o < outcomeCount; o++) {
+            scores[o] += weights[base + o];
+        }
+    }
+
+    // Softmax; shifting by the maximum changes nothing but keeps exp in range
+    private double[] softmax(double[] scores) {
+        int n = outcomeCount;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int o = 0; o < n; o++) {
+            max = Math.max(max, scores[o]);
+        }
+        double sum = 0.0;
+        for (int o = 0; o < n; o++) {
+            scores[o] = Math.exp(scores[o] - max);
+            sum += scores[o];
+        }
+        for (int o = 0; o < n; o++) {
+            scores[o] /= sum;
+        }
+        return scores;
+    }
+
+    private int row(String token) {
+        int slot = slot(token.hashCode());
+        String key;
+        while ((key = keys[slot]) != null) {
+            if (key.equals(token)) {
+                return rows[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Same table walk, hashing the chars the way String.hashCode does
+    private int row(char[] text, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + text[i];
+        }
+        int slot = slot(h);
+        String key;
+        while ((key = keys[slot]) != null) {
+            if (regionEquals(key, text, start, end)) {
+                return rows[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static boolean regionEquals(String key, char[] text, int start, int end) {
+        if (key.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != text[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /** Outcome of {@link #verify}: documents checked, largest score difference, documents out of tolerance. */
+    public record Verification(int documents, double maxDifference, int mismatches) {
+        public boolean passed() {
+            return mismatches == 0;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.chatbot.service;
+
+import java.util.Map;
+
+/**
+ * One line of the conversation event log, as read back by {@link ConversationEventReplay}.
+ *
+ * @param ts         wall-clock time the turn started, epoch milliseconds
+ * @param seq        position in the event log ring since the service started. A gap is an event lost
+ *                   to a write error; events dropped because the ring was full never get a position
+ * @param dropped    events dropped since the service started, for either reason, as of this line;
+ *                   the difference between two lines is what was lost between them
+ * @param session    session id ("default_user" when the client sent none)
+ * @param message    raw user message, only with {@code chat.event-log.include-message=true}
+ * @param category   classified intent, or null for a follow-up turn of a symptom flow
+ * @param confidence confidence of the tier that classified the turn (0 for keyword classification and follow-ups)
+ * @param tier       cascade tier that classified the turn: phrase, rule, model or keyword; null for follow-ups
+ * @param transition symptom-flow state change made by the turn, if any
+ * @param flowStep   follow-up attempts already made in the flow this turn continued (0 = new turn)
+ * @param cached     whether the classification came from the classification cache
+ * @param model      version of the model bundle that served the turn
+ * @param totalUs    end-to-end turn time in microseconds
+ * @param stagesUs   microseconds per pipeline stage tag, for the stages the turn ran
+ */
+public record ConversationEvent(long ts, long seq, long dropped, String session, String message, String category,
+                                double confidence, String tier, String transition, int flowStep, boolean cached,
+                                long model, long totalUs, Map<String, Long> stagesUs) {
+}
@@ -0,0 +1,289 @@
+package com.example.chatbot.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Structured record of every chat turn, one JSON object per line in rolling files
+ * (see {@link ConversationEvent} for the fields and {@link ConversationEventReplay}
+ * to read them back). Request threads copy their {@link TurnTrace} into a lock-free
+ * ring and return; a single background thread batches the ring into the current
+ * file. When the ring is full the event is dropped and counted, never waited for.
+ */
+@Component
+public class ConversationEventLog {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversationEventLog.class);
+    private static final String FILE_PREFIX = "events-";
+    private static final String FILE_SUFFIX = ".jsonl";
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    @Value("${chat.event-log.enabled:true}")
+    private boolean enabled;
+
+    @Value("${chat.event-log.dir:logs/events}")
+    private String dir;
+
+    // Events that may wait for the writer; rounded up to a power of two
+    @Value("${chat.event-log.buffer-size:8192}")
+    private int bufferSize;
+
+    // Most events written between two checks of the ring
+    @Value("${chat.event-log.batch-size:512}")
+    private int batchSize;
+
+    // Longest a written event may sit in the file buffer
+    @Value("${chat.event-log.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${chat.event-log.max-file-size-mb:64}")
+    private long maxFileSizeMb;
+
+    // Oldest files beyond this count are deleted when a new file is started
+    @Value("${chat.event-log.max-files:20}")
+    private int maxFiles;
+
+    // Raw user messages may contain personal health data, so they are left out by default
+    @Value("${chat.event-log.include-message:false}")
+    private boolean includeMessage;
+
+    private MpscRingBuffer<TurnTrace> ring;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private volatile boolean running;
+    private Thread writerThread;
+
+    // Writer thread state
+    private Path directory;
+    private Writer out;
+    private long fileBytes;
+    private int fileIndex;
+    private boolean failing;
+    private final StringBuilder line = new StringBuilder(512);
+    private final String[] stageKeys = new String[PipelineStage.values().length];
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            log.info("Conversation event log disabled.");
+            return;
+        }
+        for (PipelineStage stage : PipelineStage.values()) {
+            stageKeys[stage.ordinal()] = stage.tag();
+        }
+        directory = Paths.get(dir);
+        Files.createDirectories(directory);
+        ring = new MpscRingBuffer<>(Integer.highestOneBit(Math.max(bufferSize, 2) - 1) << 1, TurnTrace::new);
+        openNextFile();
+        running = true;
+        writerThread = new Thread(this::writeLoop, "event-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Conversation event log writing to {} (buffer {} events).", directory.toAbsolutePath(), ring.capacity());
+    }
+
+    /** Queues a copy of {@code trace}; returns false if the event was dropped. Never blocks. */
+    boolean publish(TurnTrace trace) {
+        if (!running) {
+            return false;
+        }
+        long position = ring.tryClaim();
+        if (position < 0) {
+            dropped.increment();
+            return false;
+        }
+        TurnTrace slot = ring.get(position);
+        slot.copyFrom(trace);
+        slot.sequence = position;
+        if (!includeMessage) {
+            slot.message = null;
+        }
+        ring.publish(position);
+        return true;
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void writeLoop() {
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        boolean dirty = false;
+        while (true) {
+            // Read the flag before draining so nothing published before stop() is lost
+            boolean stopping = !running;
+            if (ring.drain(this::write, batchSize) > 0) {
+                dirty = true;
+                continue;
+            }
+            if (dirty) {
+                try {
+                    out.flush();
+                } catch (IOException e) {
+                    failed(e);
+                }
+                dirty = false;
+            }
+            if (stopping) {
+                break;
+            }
+            LockSupport.parkNanos(flushIntervalNanos);
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            log.warn("Could not close conversation event log: {}", e.getMessage());
+        }
+    }
+
+    private void write(TurnTrace event) {
+        StringBuilder b = line;
+        b.setLength(0);
+        b.append("{\"ts\":").append(event.timestamp);
+        b.append(",\"seq\":").append(event.sequence);
+        b.append(",\"dropped\":").append(dropped.sum());
+        b.append(",\"session\":");
+        appendString(b, event.session);
+        if (event.message != null) {
+            b.append(",\"message\":");
+            appendString(b, event.message);
+        }
+        b.append(",\"category\":");
+        appendString(b, event.category);
+        b.append(",\"confidence\":").append(Math.round(event.confidence * 10_000) / 10_000.0);
+        b.append(",\"tier\":");
+        appendString(b, event.tier != null ? event.tier.tag() : null);
+        b.append(",\"transition\":");
+        appendString(b, event.transition != null ? event.transition.tag() : null);
+        b.append(",\"flowStep\":").append(event.flowStep);
+        b.append(",\"cached\":").append(event.cacheHit);
+        b.append(",\"model\":").append(event.modelVersion);
+        b.append(",\"totalUs\":").append(event.totalNanos / 1_000);
+        b.append(",\"stagesUs\":{");
+        boolean first = true;
+        for (int i = 0; i < stageKeys.length; i++) {
+            if ((event.stagesRun & (1 << i)) == 0) continue;
+            if (!first) b.append(',');
+            b.append('"').append(stageKeys[i]).append("\":").append(event.stageNanos[i] / 1_000);
+            first = false;
+        }
+        b.append("}}\n");
+        // Drop references so slots don't keep request strings alive
+        event.session = null;
+        event.message = null;
+        try {
+            if (fileBytes + b.length() > maxFileSizeMb * 1024 * 1024 && fileBytes > 0) {
+                out.close();
+                openNextFile();
+            }
+            out.append(b);
+            // Counted in chars; close enough to bytes for rolling
+            fileBytes += b.length();
+            written.increment();
+            failing = false;
+        } catch (IOException e) {
+            // The slot is still freed so producers keep going; this event is lost
+            dropped.increment();
+            failed(e);
+        }
+    }
+
+    // Logs the first failure of a run of failures, not every lost event
+    private void failed(Exception e) {
+        if (!failing) {
+            log.warn("Could not write conversation events to {}: {}", directory, e.getMessage());
+            failing = true;
+        }
+    }
+
+    private void openNextFile() throws IOException {
+        String name = FILE_PREFIX + LocalDateTime.now().format(FILE_TIME) + "-" + String.format("%04d", fileIndex++) + FILE_SUFFIX;
+        out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(directory.resolve(name)),
+                StandardCharsets.UTF_8), 64 * 1024);
+        fileBytes = 0;
+        deleteOldFiles();
+    }
+
+    private void deleteOldFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        // Names start with the creation time, so name order is age order
+        Collections.sort(files);
+        for (int i = 0; i < files.size() - maxFiles; i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+
+    private static void appendString(StringBuilder b, String value) {
+        if (value == null) {
+            b.append("null");
+            return;
+        }
+        b.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    b.append("\\\"");
+                    break;
+                case '\\':
+                    b.append("\\\\");
+                    break;
+                case '\n':
+                    b.append("\\n");
+                    break;
+                case '\r':
+                    b.append("\\r");
+                    break;
+                case '\t':
+                    b.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        b.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        b.append(c);
+                    }
+            }
+        }
+        b.append('"');
+    }
+}
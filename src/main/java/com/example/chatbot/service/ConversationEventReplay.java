@@ -0,0 +1,126 @@
+package com.example.chatbot.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Reads conversation event logs back. {@link #replay} streams the events of a file
+ * or of every {@code events-*.jsonl} file in a directory, oldest first; {@link #main}
+ * prints them or a summary:
+ * <pre>
+ * java -cp app.jar -Dloader.main=com.example.chatbot.service.ConversationEventReplay \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher logs/events [--print] [--session id]
+ * </pre>
+ */
+public final class ConversationEventReplay {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private ConversationEventReplay() {
+    }
+
+    public static void replay(Path path, Consumer<ConversationEvent> consumer) throws IOException {
+        for (Path file : files(path)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    // The last line of a file still being written may be incomplete
+                    if (line.isBlank() || !line.endsWith("}")) continue;
+                    consumer.accept(MAPPER.readValue(line, ConversationEvent.class));
+                }
+            }
+        }
+    }
+
+    static List<Path> files(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return List.of(path);
+        }
+        try (Stream<Path> files = Files.list(path)) {
+            // Names start with the creation time, so name order is write order
+            return files.filter(f -> f.getFileName().toString().matches("events-.*\\.jsonl"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: ConversationEventReplay <file-or-directory> [--print] [--session <id>]");
+            System.exit(2);
+        }
+        Path path = Paths.get(args[0]);
+        List<String> options = Arrays.asList(args).subList(1, args.length);
+        boolean print = options.contains("--print");
+        int sessionAt = options.indexOf("--session");
+        String session = sessionAt >= 0 && sessionAt + 1 < options.size() ? options.get(sessionAt + 1) : null;
+
+        Summary summary = new Summary();
+        PrintStream out = System.out;
+        replay(path, event -> {
+            if (session != null && !session.equals(event.session())) return;
+            if (print) out.println(MAPPER.valueToTree(event));
+            summary.add(event);
+        });
+        summary.print(out);
+    }
+
+    private static final class Summary {
+        private long events;
+        private long firstSeq = Long.MAX_VALUE;
+        private long lastSeq = -1;
+        private long firstDropped = Long.MAX_VALUE;
+        private long lastDropped;
+        private long cached;
+        private final Map<String, Long> categories = new TreeMap<>();
+        private final Map<String, Long> tiers = new TreeMap<>();
+        private final Map<String, Long> transitions = new TreeMap<>();
+        private final List<Long> turnMicros = new ArrayList<>();
+
+        void add(ConversationEvent event) {
+            events++;
+            firstSeq = Math.min(firstSeq, event.seq());
+            lastSeq = Math.max(lastSeq, event.seq());
+            firstDropped = Math.min(firstDropped, event.dropped());
+            lastDropped = Math.max(lastDropped, event.dropped());
+            if (event.cached()) cached++;
+            categories.merge(event.category() != null ? event.category() : "(follow-up)", 1L, Long::sum);
+            if (event.tier() != null) tiers.merge(event.tier(), 1L, Long::sum);
+            if (event.transition() != null) transitions.merge(event.transition(), 1L, Long::sum);
+            turnMicros.add(event.totalUs());
+        }
+
+        void print(PrintStream out) {
+            out.println("events: " + events + (events > 0 ? " (seq " + firstSeq + ".." + lastSeq + ")" : ""));
+            if (events == 0) return;
+            out.println("dropped between them: " + (lastDropped - firstDropped));
+            out.println("cached classifications: " + cached);
+            out.println("categories: " + categories);
+            out.println("cascade tiers: " + tiers);
+            out.println("transitions: " + transitions);
+            turnMicros.sort(null);
+            out.println("turn latency us: p50=" + percentile(0.50) + " p99=" + percentile(0.99)
+                    + " p999=" + percentile(0.999) + " max=" + turnMicros.get(turnMicros.size() - 1));
+        }
+
+        private long percentile(double p) {
+            return turnMicros.get((int) Math.min(turnMicros.size() - 1, Math.ceil(p * turnMicros.size()) - 1));
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.chatbot.service;
+
+/**
+ * Per-user conversation state: the symptom we are waiting for details about,
+ * how many times we've asked, and when the state was last written.
+ */
+public record ConversationState(String symptom, int retry, long lastTouched) {
+
+    public static ConversationState awaitingDetails(String symptom, int retry) {
+        return new ConversationState(symptom, retry, System.currentTimeMillis());
+    }
+}
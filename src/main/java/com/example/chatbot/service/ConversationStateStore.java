@@ -0,0 +1,32 @@
+package com.example.chatbot.service;
+
+/**
+ * Holds {@link ConversationState} per user. Implementations must be safe to call
+ * from any request thread and are expected to bound their own memory use.
+ */
+public interface ConversationStateStore {
+
+    /** Returns the live state for the user, or null if none (or it expired). */
+    ConversationState get(String userId);
+
+    /**
+     * Like {@link #get} but answered locally, never waiting on another server; may
+     * return null for a state that {@link #get} would find. For hints such as the
+     * admission priority, which must not wait before the turn is admitted.
+     */
+    default ConversationState peek(String userId) {
+        return get(userId);
+    }
+
+    void put(String userId, ConversationState state);
+
+    void remove(String userId);
+
+    int size();
+
+    /** Entries dropped because the store was full. */
+    long getEvictionCount();
+
+    /** Entries dropped because they outlived the TTL. */
+    long getExpirationCount();
+}
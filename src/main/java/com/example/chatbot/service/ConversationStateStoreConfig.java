@@ -0,0 +1,87 @@
+package com.example.chatbot.service;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Picks the {@link ConversationStateStore} backend from {@code session.store.backend}:
+ * {@code memory} (default; lost on restart), {@code journal} (local, survives
+ * restarts) or {@code remote} (Redis, shared between instances).
+ * <p>
+ * Boot's own Redis auto-configuration is excluded in {@code ChatbotApplication}, so the
+ * other backends carry no Redis connection or health check; the remote backend
+ * registers its {@link LettuceConnectionFactory} here, which also brings back the
+ * {@code redis} health indicator.
+ */
+@Configuration
+public class ConversationStateStoreConfig {
+
+    @Value("${session.store.max-size:100000}")
+    private int maxSize;
+
+    @Value("${session.store.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    @Value("${session.store.stripes:16}")
+    private int stripes;
+
+    @Bean
+    @ConditionalOnProperty(name = "session.store.backend", havingValue = "memory", matchIfMissing = true)
+    public StripedConversationStateStore memoryConversationStateStore() {
+        return new StripedConversationStateStore(maxSize, ttlMinutes, stripes);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "session.store.backend", havingValue = "journal")
+    public JournalConversationStateStore journalConversationStateStore(
+            @Value("${session.store.journal.dir:data/sessions}") String dir,
+            @Value("${session.store.journal.segment-size-mb:64}") int segmentSizeMb,
+            @Value("${session.store.journal.snapshot-interval-seconds:300}") long snapshotIntervalSeconds,
+            @Value("${session.store.journal.flush-interval-ms:100}") long flushIntervalMs,
+            @Value("${session.store.journal.buffer-size:16384}") int bufferSize) throws IOException {
+        return new JournalConversationStateStore(new StripedConversationStateStore(maxSize, ttlMinutes, stripes),
+                Paths.get(dir), segmentSizeMb, snapshotIntervalSeconds, flushIntervalMs, bufferSize);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "session.store.backend", havingValue = "remote")
+    public LettuceConnectionFactory sessionRedisConnectionFactory(
+            @Value("${session.store.remote.host:localhost}") String host,
+            @Value("${session.store.remote.port:6379}") int port,
+            @Value("${session.store.remote.connect-timeout-ms:1000}") int connectTimeoutMs,
+            @Value("${session.store.remote.max-pending:10000}") int maxPending) {
+        LettuceClientConfiguration client = LettuceClientConfiguration.builder()
+                .clientOptions(RemoteConversationStateStore.clientOptions(maxPending, connectTimeoutMs))
+                .commandTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        return new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port), client);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "session.store.backend", havingValue = "remote")
+    public RemoteConversationStateStore remoteConversationStateStore(
+            LettuceConnectionFactory connectionFactory,
+            @Value("${session.store.remote.key-prefix:chat:session:}") String keyPrefix,
+            @Value("${session.store.remote.read-timeout-ms:50}") long readTimeoutMs,
+            @Value("${session.store.remote.connect-timeout-ms:1000}") int connectTimeoutMs,
+            @Value("${session.store.remote.near-cache-ttl-ms:0}") long nearCacheTtlMs) {
+        RedisURI uri = RedisURI.builder()
+                .withHost(connectionFactory.getHostName())
+                .withPort(connectionFactory.getPort())
+                .withTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        return new RemoteConversationStateStore((RedisClient) connectionFactory.getRequiredNativeClient(), uri,
+                keyPrefix, maxSize, nearCacheTtlMs, ttlMinutes * 60_000L, readTimeoutMs);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.chatbot.service;
+
+import opennlp.tools.doccat.DoccatFactory;
+import opennlp.tools.doccat.DoccatModel;
+import opennlp.tools.doccat.DocumentCategorizerME;
+import opennlp.tools.doccat.DocumentSample;
+import opennlp.tools.tokenize.WhitespaceTokenizer;
+import opennlp.tools.util.ObjectStreamUtils;
+import opennlp.tools.util.TrainingParameters;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Trains the intent (doccat) model from "category text" lines. The Maven build runs
+ * {@link #main} during process-classes so the model ships in the jar as
+ * {@code /models/en-doccat.bin} and the service only has to load it at startup.
+ */
+public final class DoccatModelTrainer {
+
+    private DoccatModelTrainer() {
+    }
+
+    public static DoccatModel train(InputStream trainingData) throws IOException {
+        return train(readSamples(trainingData));
+    }
+
+    public static DoccatModel train(List<DocumentSample> samples) throws IOException {
+        TrainingParameters params = new TrainingParameters();
+        params.put(TrainingParameters.ITERATIONS_PARAM, "100");
+        params.put(TrainingParameters.CUTOFF_PARAM, "1");
+        // One training thread, so a background retrain never takes more than one core from requests
+        params.put(TrainingParameters.THREADS_PARAM, "1");
+
+        return DocumentCategorizerME.train("en", ObjectStreamUtils.createObjectStream(samples), params, new DoccatFactory());
+    }
+
+    /** Parses "category text" lines the way DocumentSampleStream does; blank lines are skipped. */
+    public static List<DocumentSample> readSamples(InputStream trainingData) throws IOException {
+        List<DocumentSample> samples = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(trainingData, StandardCharsets.UTF_8));
+        String line;
+        int lineNo = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            String[] tokens = WhitespaceTokenizer.INSTANCE.tokenize(line);
+            if (tokens.length == 0) continue;
+            if (tokens.length == 1) {
+                throw new IOException("Training line " + lineNo + " has a category but no text: " + line);
+            }
+            samples.add(new DocumentSample(tokens[0], Arrays.copyOfRange(tokens, 1, tokens.length)));
+        }
+        return samples;
+    }
+
+    /** Usage: DoccatModelTrainer &lt;training.txt&gt; &lt;en-doccat.bin&gt; */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: DoccatModelTrainer <training-file> <model-file>");
+            System.exit(2);
+        }
+        Path trainingFile = Paths.get(args[0]);
+        Path modelFile = Paths.get(args[1]);
+        if (Files.exists(modelFile)
+                && Files.getLastModifiedTime(modelFile).compareTo(Files.getLastModifiedTime(trainingFile)) >= 0) {
+            System.out.println("Doccat model is up to date: " + modelFile);
+            return;
+        }
+
+        long start = System.nanoTime();
+        DoccatModel model;
+        try (InputStream in = Files.newInputStream(trainingFile)) {
+            model = train(in);
+        }
+        Files.createDirectories(modelFile.toAbsolutePath().getParent());
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(modelFile))) {
+            model.serialize(out);
+        }
+        System.out.println("Trained doccat model " + modelFile + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+}
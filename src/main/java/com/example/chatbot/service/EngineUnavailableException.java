@@ -0,0 +1,9 @@
+package com.example.chatbot.service;
+
+/** Every engine of the pool stayed busy for the whole borrow timeout. */
+public class EngineUnavailableException extends RuntimeException {
+
+    public EngineUnavailableException(int maxEngines) {
+        super("All " + maxEngines + " NLP engines are busy");
+    }
+}
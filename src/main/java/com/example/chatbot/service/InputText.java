@@ -0,0 +1,194 @@
+package com.example.chatbot.service;
+
+import java.util.Arrays;
+
+/**
+ * The message of the current turn, normalized in one pass into arrays its
+ * {@link NLPEngine} reuses: the lowercased text, the classification-cache key
+ * (see {@link ClassificationCache#normalize}) and the whitespace token spans as
+ * start/end offsets. Nothing is allocated per turn unless a caller asks for a
+ * String.
+ * <p>
+ * Messages made only of ASCII letters, digits and whitespace take the fast path.
+ * For those, the spans are exactly what {@code TokenizerME} would return under its
+ * alphanumeric optimization, so tokens never have to be materialized. Anything else
+ * is lowercased with {@link String#toLowerCase()} as before and tokenized by OpenNLP.
+ */
+final class InputText implements CharSequence {
+
+    private static final int INITIAL_CAPACITY = 256;
+    // Buffers grown by an unusually long message are dropped again on clear()
+    private static final int MAX_RETAINED_CAPACITY = 8192;
+
+    private char[] chars = new char[INITIAL_CAPACITY];
+    private int length;
+    private char[] key = new char[INITIAL_CAPACITY];
+    private int keyLength;
+    // Token i spans [spans[2i], spans[2i + 1])
+    private int[] spans = new int[64];
+    private int tokenCount;
+    private boolean fastPath;
+
+    // Materialized on demand
+    private String lowerString;
+    private String keyString;
+
+    void set(String input) {
+        lowerString = null;
+        keyString = null;
+        ensureCapacity(input.length());
+        if (isAscii(input)) {
+            normalizeAscii(input);
+        } else {
+            // Full Unicode case mapping can change the length ("İ"), so leave it to the JDK
+            lowerString = input.toLowerCase();
+            keyString = ClassificationCache.normalize(input);
+            ensureCapacity(lowerString.length());
+            length = lowerString.length();
+            lowerString.getChars(0, length, chars, 0);
+            keyLength = 0;
+            fastPath = false;
+            findSpans();
+        }
+    }
+
+    /** Whether the spans are final tokens (ASCII letters, digits and whitespace only). */
+    boolean isFastPath() {
+        return fastPath;
+    }
+
+    int tokenCount() {
+        return tokenCount;
+    }
+
+    /** Start/end offsets of token i at {@code [2i]} and {@code [2i + 1]}, valid for {@link #tokenCount()} tokens. */
+    int[] spans() {
+        return spans;
+    }
+
+    /** The lowercased text; valid for {@link #length()} chars. */
+    char[] buffer() {
+        return chars;
+    }
+
+    /** Token i as a new String. */
+    String token(int i) {
+        return new String(chars, spans[2 * i], spans[2 * i + 1] - spans[2 * i]);
+    }
+
+    /** The classification-cache key, equal to {@code ClassificationCache.normalize(input)}. */
+    String cacheKey() {
+        if (keyString == null) {
+            keyString = new String(key, 0, keyLength);
+        }
+        return keyString;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return chars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    /** The lowercased text. */
+    @Override
+    public String toString() {
+        if (lowerString == null) {
+            lowerString = new String(chars, 0, length);
+        }
+        return lowerString;
+    }
+
+    void clear() {
+        if (chars.length > MAX_RETAINED_CAPACITY) {
+            chars = new char[INITIAL_CAPACITY];
+            key = new char[INITIAL_CAPACITY];
+            spans = new int[64];
+        }
+        length = 0;
+        keyLength = 0;
+        tokenCount = 0;
+        fastPath = false;
+        lowerString = null;
+        keyString = null;
+    }
+
+    private void normalizeAscii(String input) {
+        int n = input.length();
+        boolean fast = true;
+        boolean pendingSpace = false;
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            char c = input.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+            chars[i] = c;
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                if (pendingSpace && k > 0) {
+                    key[k++] = ' ';
+                }
+                pendingSpace = false;
+                key[k++] = c;
+            } else {
+                pendingSpace = true;
+                if (!Character.isWhitespace(c)) {
+                    fast = false;
+                }
+            }
+        }
+        length = n;
+        keyLength = k;
+        fastPath = fast;
+        findSpans();
+    }
+
+    // chars and key always have the same length, so the ASCII path can index both by input position
+    private void ensureCapacity(int n) {
+        if (chars.length < n) {
+            chars = new char[Math.max(n, chars.length * 2)];
+            key = new char[chars.length];
+        }
+    }
+
+    // Whitespace-separated runs, the first step of TokenizerME as well
+    private void findSpans() {
+        int count = 0;
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean space = i == length || Character.isWhitespace(chars[i]) || Character.isSpaceChar(chars[i]);
+            if (space) {
+                if (start >= 0) {
+                    if (2 * count + 2 > spans.length) {
+                        spans = Arrays.copyOf(spans, spans.length * 2);
+                    }
+                    spans[2 * count] = start;
+                    spans[2 * count + 1] = i;
+                    count++;
+                    start = -1;
+                }
+            } else if (start < 0) {
+                start = i;
+            }
+        }
+        tokenCount = count;
+    }
+
+    private static boolean isAscii(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            if (input.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
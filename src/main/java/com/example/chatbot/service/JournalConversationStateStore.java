@@ -0,0 +1,426 @@
+package com.example.chatbot.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * {@link ConversationStateStore} that survives restarts ({@code session.store.backend=journal}).
+ * Reads and writes are served by an in-memory {@link StripedConversationStateStore};
+ * every write, removal and size eviction is also queued on a lock-free ring, from
+ * the store's {@link StripedConversationStateStore.ChangeListener} and so under the
+ * same stripe lock as the change itself: the journal holds each session's changes
+ * in the order they were made, and evicted sessions stay evicted after a restart.
+ * One background thread appends
+ * the queued writes to a memory-mapped journal segment (write-behind) and forces it
+ * to disk on an interval. Periodically, and whenever a segment fills up, that thread
+ * writes a snapshot of the live state and starts a new journal generation, so
+ * startup only loads one snapshot and replays at most one segment.
+ * <p>
+ * Files in the journal directory, for generation {@code n}: {@code snapshot-n.bin}
+ * is the state when generation {@code n} began, {@code journal-n.log} the writes
+ * since. Journal records are {@code [length][crc32][op, time, retry, user, symptom]};
+ * a zero length or a bad checksum (a torn write) ends the replay.
+ */
+public class JournalConversationStateStore implements ConversationStateStore, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalConversationStateStore.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x43535331;
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+    // Longer session ids are served from memory but not persisted (modified UTF-8 stays < 64 KB)
+    private static final int MAX_KEY_CHARS = 16_384;
+    private static final int BATCH_SIZE = 1024;
+
+    private final StripedConversationStateStore memory;
+    private final Path directory;
+    private final int segmentSize;
+    private final long snapshotIntervalNanos;
+    private final long flushIntervalNanos;
+    private final MpscRingBuffer<JournalRecord> ring;
+    private final LongAdder droppedWrites = new LongAdder();
+    private volatile boolean running;
+    private final Thread writerThread;
+
+    // Writer thread state (the constructor runs before the thread starts)
+    private long generation;
+    private FileChannel channel;
+    private MappedByteBuffer journal;
+    private boolean dirty;
+    private long lastSnapshotNanos;
+    private final ByteBuffer scratch = ByteBuffer.allocate(1 + 8 + 4 + 2 + 3 * MAX_KEY_CHARS + 2 + 3 * MAX_KEY_CHARS);
+    private final CRC32 crc = new CRC32();
+
+    public JournalConversationStateStore(StripedConversationStateStore memory, Path directory, int segmentSizeMb,
+                                         long snapshotIntervalSeconds, long flushIntervalMs, int bufferSize)
+            throws IOException {
+        this.memory = memory;
+        this.directory = directory;
+        this.segmentSize = segmentSizeMb * 1024 * 1024;
+        this.snapshotIntervalNanos = TimeUnit.SECONDS.toNanos(snapshotIntervalSeconds);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        Files.createDirectories(directory);
+
+        long start = System.nanoTime();
+        generation = restore();
+        // Compact right away: the next start loads this snapshot and an empty journal
+        if (!snapshot()) {
+            throw new IOException("Cannot write session snapshots to " + directory.toAbsolutePath());
+        }
+        log.info("Restored {} conversations from {} in {} ms.", memory.size(), directory.toAbsolutePath(),
+                (System.nanoTime() - start) / 1_000_000);
+
+        ring = new MpscRingBuffer<>(Integer.highestOneBit(Math.max(bufferSize, 2) - 1) << 1, JournalRecord::new);
+        memory.setChangeListener(new StripedConversationStateStore.ChangeListener() {
+            @Override
+            public void written(String userId, ConversationState state) {
+                append(OP_PUT, userId, state.symptom(), state.retry(), state.lastTouched());
+            }
+
+            @Override
+            public void removed(String userId) {
+                append(OP_REMOVE, userId, "", 0, System.currentTimeMillis());
+            }
+        });
+        running = true;
+        writerThread = new Thread(this::writeLoop, "session-journal");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public ConversationState get(String userId) {
+        return memory.get(userId);
+    }
+
+    // Journaled by the change listener, under the stripe lock
+    @Override
+    public void put(String userId, ConversationState state) {
+        memory.put(userId, state);
+    }
+
+    @Override
+    public void remove(String userId) {
+        memory.remove(userId);
+    }
+
+    @Override
+    public int size() {
+        return memory.size();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return memory.getEvictionCount();
+    }
+
+    @Override
+    public long getExpirationCount() {
+        return memory.getExpirationCount();
+    }
+
+    /** Writes that never reached the journal because the write-behind queue was full. */
+    public long getDroppedWriteCount() {
+        return droppedWrites.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${session.store.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        // Expired entries need no journal record: restore skips them by their timestamp
+        memory.purgeExpired();
+    }
+
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Never blocks: if the writer is a full ring behind, the write is only kept in memory.
+    // Called under the stripe lock of userId, so one session's records are claimed in order
+    private void append(byte op, String userId, String symptom, int retry, long time) {
+        if (!running || userId.length() > MAX_KEY_CHARS) {
+            return;
+        }
+        long position = ring.tryClaim();
+        if (position < 0) {
+            droppedWrites.increment();
+            return;
+        }
+        JournalRecord record = ring.get(position);
+        record.op = op;
+        record.userId = userId;
+        record.symptom = symptom;
+        record.retry = retry;
+        record.time = time;
+        ring.publish(position);
+    }
+
+    private void writeLoop() {
+        long lastForce = System.nanoTime();
+        while (true) {
+            // Read the flag before draining so nothing queued before close() is lost
+            boolean stopping = !running;
+            int count = ring.drain(this::write, BATCH_SIZE);
+            long now = System.nanoTime();
+            if (dirty && (count == 0 || now - lastForce >= flushIntervalNanos)) {
+                journal.force();
+                dirty = false;
+                lastForce = now;
+            }
+            if (stopping && count == 0) {
+                break;
+            }
+            if (now - lastSnapshotNanos >= snapshotIntervalNanos) {
+                snapshot();
+            }
+            if (count == 0) {
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+        }
+        // A final snapshot makes the next startup a snapshot load with nothing to replay
+        snapshot();
+        closeJournal();
+    }
+
+    private void write(JournalRecord record) {
+        ByteBuffer payload = scratch;
+        payload.clear();
+        payload.put(record.op).putLong(record.time).putInt(record.retry);
+        putString(payload, record.userId);
+        putString(payload, record.symptom);
+        record.userId = null;
+        record.symptom = null;
+        payload.flip();
+
+        int length = payload.remaining();
+        if (journal.remaining() < 8 + length + 4 && !snapshot()) {
+            droppedWrites.increment();
+            return;
+        }
+        crc.reset();
+        crc.update(payload.array(), 0, length);
+        journal.putInt(length).putInt((int) crc.getValue()).put(payload);
+        dirty = true;
+    }
+
+    /**
+     * Writes the live state as snapshot {@code generation + 1} and switches to that
+     * generation's journal, then deletes older files. Returns false if it failed, in
+     * which case the current generation stays in use.
+     */
+    private boolean snapshot() {
+        long next = generation + 1;
+        Path snapshotFile = file("snapshot", next, ".bin");
+        Path tmp = directory.resolve(snapshotFile.getFileName() + ".tmp");
+        try {
+            try (FileOutputStream fileOut = new FileOutputStream(tmp.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                memory.forEach((userId, state) -> {
+                    if (userId.length() > MAX_KEY_CHARS) return;
+                    try {
+                        out.writeBoolean(true);
+                        out.writeUTF(userId);
+                        out.writeUTF(state.symptom());
+                        out.writeInt(state.retry());
+                        out.writeLong(state.lastTouched());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                out.writeBoolean(false);
+                out.flush();
+                fileOut.getFD().sync();
+            }
+            Files.move(tmp, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            closeJournal();
+            channel = FileChannel.open(file("journal", next, ".log"), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            journal = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            generation = next;
+            lastSnapshotNanos = System.nanoTime();
+            deleteOlderThan(next);
+            return true;
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Session snapshot {} failed", snapshotFile, e);
+            // Retry at the next interval rather than on every write
+            lastSnapshotNanos = System.nanoTime();
+            return false;
+        }
+    }
+
+    private void closeJournal() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            journal.force();
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Could not close session journal: {}", e.getMessage());
+        }
+        channel = null;
+    }
+
+    /** Loads the newest readable snapshot and replays its journal; returns its generation. */
+    private long restore() throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "snapshot-*.bin")) {
+            for (Path file : files) {
+                if (generationOf(file) > 0) generations.add(generationOf(file));
+            }
+        }
+        // Newest first; an unreadable snapshot falls back to the one before it
+        generations.sort(Collections.reverseOrder());
+        for (long gen : generations) {
+            Path snapshotFile = file("snapshot", gen, ".bin");
+            try {
+                loadSnapshot(snapshotFile);
+            } catch (IOException e) {
+                log.warn("Skipping unreadable session snapshot {}: {}", snapshotFile, e.getMessage());
+                continue;
+            }
+            Path journalFile = file("journal", gen, ".log");
+            if (Files.exists(journalFile)) {
+                replay(journalFile);
+            }
+            return gen;
+        }
+        return 0;
+    }
+
+    private void loadSnapshot(Path file) throws IOException {
+        long now = System.currentTimeMillis();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("not a session snapshot");
+            }
+            while (in.readBoolean()) {
+                String userId = in.readUTF();
+                ConversationState state = new ConversationState(in.readUTF(), in.readInt(), in.readLong());
+                if (now - state.lastTouched() <= memory.getTtlMillis()) {
+                    memory.put(userId, state);
+                }
+            }
+        } catch (EOFException e) {
+            throw new IOException("truncated", e);
+        }
+    }
+
+    private void replay(Path file) throws IOException {
+        long now = System.currentTimeMillis();
+        int records = 0;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            CRC32 check = new CRC32();
+            while (buffer.remaining() >= 8) {
+                int length = buffer.getInt();
+                int expected = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                ByteBuffer payload = buffer.slice(buffer.position(), length);
+                check.reset();
+                check.update(payload.duplicate());
+                if ((int) check.getValue() != expected) {
+                    log.warn("Session journal {} ends in a torn record after {} records.", file, records);
+                    break;
+                }
+                buffer.position(buffer.position() + length);
+                byte op = payload.get();
+                long time = payload.getLong();
+                int retry = payload.getInt();
+                String userId = getString(payload);
+                String symptom = getString(payload);
+                if (op == OP_REMOVE) {
+                    memory.remove(userId);
+                } else if (now - time <= memory.getTtlMillis()) {
+                    memory.put(userId, new ConversationState(symptom, retry, time));
+                }
+                records++;
+            }
+        }
+    }
+
+    private void deleteOlderThan(long gen) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "{snapshot,journal}-*")) {
+            for (Path file : files) {
+                long fileGen = generationOf(file);
+                if (fileGen >= 0 && fileGen < gen) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private Path file(String kind, long gen, String suffix) {
+        return directory.resolve(String.format("%s-%012d%s", kind, gen, suffix));
+    }
+
+    private static long generationOf(Path file) {
+        String name = file.getFileName().toString();
+        int dash = name.indexOf('-');
+        int dot = name.indexOf('.');
+        try {
+            return Long.parseLong(name.substring(dash + 1, dot));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class JournalRecord {
+        byte op;
+        String userId;
+        String symptom;
+        int retry;
+        long time;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.chatbot.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton over a fixed set of phrases. Built once, then finds every
+ * occurrence of every phrase in a single left-to-right pass, case-insensitively,
+ * without allocating. Matches are plain substring matches (no word boundaries),
+ * the same semantics as {@code String.contains}.
+ */
+public class KeywordMatcher {
+
+    /** Receives each match; {@code end} is exclusive. */
+    public interface MatchHandler {
+        void onMatch(int pattern, int start, int end);
+    }
+
+    // Trie edges per state, sorted by label for binary search
+    private final char[][] labels;
+    private final int[][] targets;
+    private final int[] fail;
+    // Pattern ending exactly at this state, or -1
+    private final int[] output;
+    // Nearest state on the fail chain that has an output, or -1
+    private final int[] dictLink;
+    private final int[] patternLengths;
+
+    public KeywordMatcher(List<String> patterns) {
+        List<StringBuilder> edgeLabels = new ArrayList<>();
+        List<List<Integer>> edgeTargets = new ArrayList<>();
+        List<Integer> outputs = new ArrayList<>();
+        edgeLabels.add(new StringBuilder());
+        edgeTargets.add(new ArrayList<>());
+        outputs.add(-1);
+
+        patternLengths = new int[patterns.size()];
+        for (int p = 0; p < patterns.size(); p++) {
+            String pattern = patterns.get(p).toLowerCase();
+            if (pattern.isEmpty()) {
+                throw new IllegalArgumentException("Empty pattern at index " + p);
+            }
+            patternLengths[p] = pattern.length();
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                int idx = edgeLabels.get(state).indexOf(String.valueOf(c));
+                if (idx >= 0) {
+                    state = edgeTargets.get(state).get(idx);
+                } else {
+                    int next = outputs.size();
+                    edgeLabels.get(state).append(c);
+                    edgeTargets.get(state).add(next);
+                    edgeLabels.add(new StringBuilder());
+                    edgeTargets.add(new ArrayList<>());
+                    outputs.add(-1);
+                    state = next;
+                }
+            }
+            if (outputs.get(state) >= 0) {
+                throw new IllegalArgumentException("Duplicate pattern: " + pattern);
+            }
+            outputs.set(state, p);
+        }
+
+        int stateCount = outputs.size();
+        labels = new char[stateCount][];
+        targets = new int[stateCount][];
+        output = new int[stateCount];
+        for (int s = 0; s < stateCount; s++) {
+            String edges = edgeLabels.get(s).toString();
+            Integer[] order = new Integer[edges.length()];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> Character.compare(edges.charAt(a), edges.charAt(b)));
+            labels[s] = new char[order.length];
+            targets[s] = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                labels[s][i] = edges.charAt(order[i]);
+                targets[s][i] = edgeTargets.get(s).get(order[i]);
+            }
+            output[s] = outputs.get(s);
+        }
+
+        // Breadth-first so a state's fail target is always resolved before its children
+        fail = new int[stateCount];
+        dictLink = new int[stateCount];
+        dictLink[0] = -1;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[0]) {
+            fail[child] = 0;
+            dictLink[child] = -1;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            for (int i = 0; i < labels[s].length; i++) {
+                char c = labels[s][i];
+                int child = targets[s][i];
+                int f = fail[s];
+                int next;
+                while ((next = step(f, c)) < 0 && f != 0) {
+                    f = fail[f];
+                }
+                fail[child] = Math.max(next, 0);
+                int fc = fail[child];
+                dictLink[child] = output[fc] >= 0 ? fc : dictLink[fc];
+                queue.add(child);
+            }
+        }
+    }
+
+    public int getPatternCount() {
+        return patternLengths.length;
+    }
+
+    /** Reports every pattern occurrence in {@code text}, ordered by end position. */
+    public void match(CharSequence text, MatchHandler handler) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int next;
+            while ((next = step(state, c)) < 0 && state != 0) {
+                state = fail[state];
+            }
+            state = Math.max(next, 0);
+            for (int s = output[state] >= 0 ? state : dictLink[state]; s >= 0; s = dictLink[s]) {
+                int p = output[s];
+                handler.onMatch(p, i + 1 - patternLengths[p], i + 1);
+            }
+        }
+    }
+
+    private int step(int state, char c) {
+        int idx = Arrays.binarySearch(labels[state], c);
+        return idx >= 0 ? targets[state][idx] : -1;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.chatbot.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reply texts, symptom advice and keyword phrases, one JSON document per locale,
+ * compiled into {@link KnowledgeCatalog}s. Requests read the catalogs with a single
+ * volatile read; {@link #reload()} compiles every document again and swaps them in
+ * only if all of them compile, so a bad edit never replaces a working catalog.
+ */
+@Component
+public class KnowledgeBase {
+
+    private static final Logger log = LoggerFactory.getLogger(KnowledgeBase.class);
+
+    // One document per locale; a file: pattern lets operators edit without a redeploy
+    @Value("${nlp.knowledge-base.location:classpath:knowledge-base/*.json}")
+    private String location;
+
+    @Value("${nlp.knowledge-base.default-locale:en}")
+    private String defaultLocale;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private long nextVersion = 1;
+
+    /** The compiled catalogs of one load; {@code defaultCatalog} is never null. */
+    public record Snapshot(long version, Instant loadedAt, Map<String, KnowledgeCatalog> catalogs,
+                           KnowledgeCatalog defaultCatalog) {
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Snapshot snapshot = reload();
+        log.info("Knowledge base loaded: {} (default {}, {} symptoms, {} phrases).", snapshot.catalogs().keySet(),
+                snapshot.defaultCatalog().getLocale(), snapshot.defaultCatalog().getSymptomCount(),
+                snapshot.defaultCatalog().getLexicon().getPhraseCount());
+    }
+
+    /** Catalog for the default locale. */
+    public KnowledgeCatalog current() {
+        return current.get().defaultCatalog();
+    }
+
+    /**
+     * Catalog for {@code locale}, a language tag ("fr", "fr-CA") or an Accept-Language
+     * list ("fr-CA,fr;q=0.9,en;q=0.5"), matched by RFC 4647 lookup so "fr-CA" falls
+     * back to "fr". Returns the default catalog when none of them is loaded or the
+     * value does not parse.
+     */
+    public KnowledgeCatalog current(String locale) {
+        Snapshot snapshot = current.get();
+        if (locale == null || locale.isBlank()) {
+            return snapshot.defaultCatalog();
+        }
+        KnowledgeCatalog catalog = snapshot.catalogs().get(locale);
+        if (catalog != null) {
+            return catalog;
+        }
+        List<Locale.LanguageRange> ranges;
+        try {
+            ranges = Locale.LanguageRange.parse(locale);
+        } catch (IllegalArgumentException e) {
+            return snapshot.defaultCatalog();
+        }
+        String tag = Locale.lookupTag(ranges, snapshot.catalogs().keySet());
+        catalog = tag != null ? snapshot.catalogs().get(tag) : null;
+        return catalog != null ? catalog : snapshot.defaultCatalog();
+    }
+
+    public Snapshot getSnapshot() {
+        return current.get();
+    }
+
+    /**
+     * Reads and compiles every document matching {@code nlp.knowledge-base.location}
+     * and publishes them together. On any error the current catalogs stay in place.
+     */
+    public synchronized Snapshot reload() throws IOException {
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources(location);
+        Map<String, KnowledgeCatalog> catalogs = new LinkedHashMap<>();
+        for (Resource resource : resources) {
+            KnowledgeCatalog catalog;
+            try (InputStream in = resource.getInputStream()) {
+                catalog = compile(in);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(resource.getFilename() + ": " + e.getMessage(), e);
+            }
+            if (catalogs.putIfAbsent(catalog.getLocale(), catalog) != null) {
+                throw new IOException("Locale '" + catalog.getLocale() + "' is defined twice in " + location);
+            }
+        }
+        KnowledgeCatalog defaultCatalog = catalogs.get(defaultLocale);
+        if (defaultCatalog == null) {
+            throw new IOException("No knowledge base for default locale '" + defaultLocale + "' in " + location);
+        }
+        Snapshot snapshot = new Snapshot(nextVersion++, Instant.now(), Collections.unmodifiableMap(catalogs),
+                defaultCatalog);
+        current.set(snapshot);
+        return snapshot;
+    }
+
+    public KnowledgeCatalog compile(InputStream in) throws IOException {
+        JsonNode root = objectMapper.readTree(in);
+        return KnowledgeCatalog.compile(root);
+    }
+}
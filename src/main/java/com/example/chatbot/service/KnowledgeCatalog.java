@@ -0,0 +1,193 @@
+package com.example.chatbot.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One locale of the knowledge base, compiled: reply templates already split into
+ * {@link Template}s, hash lookups by category and symptom, and the {@link Lexicon}
+ * built from the same intent keywords, symptom aliases and detail phrases.
+ * Immutable; a reload compiles a new catalog instead of changing this one.
+ */
+public final class KnowledgeCatalog {
+
+    /** Fixed replies and reply fragments, keyed in the JSON by {@link #key}. */
+    public enum Message {
+        EMPTY("empty"),
+        UNKNOWN("unknown"),
+        LOW_CONFIDENCE("lowConfidence"),
+        SYMPTOM_ACK("symptomAck"),
+        MULTIPLE_SYMPTOMS("multipleSymptoms"),
+        ASK_DETAILS("askDetails"),
+        SYMPTOM_UNSPECIFIED("symptomUnspecified"),
+        RETRY_DETAILS("retryDetails"),
+        GIVE_UP("giveUp"),
+        ADVICE_URGENT("adviceUrgent"),
+        ADVICE_ROUTINE("adviceRoutine"),
+        ESCALATING("escalating"),
+        SEVERE("severe"),
+        MILD("mild"),
+        DEFAULT_CARE("defaultCare");
+
+        private final String key;
+
+        Message(String key) {
+            this.key = key;
+        }
+    }
+
+    private static final String SYMPTOM_INTENT = "symptom";
+
+    private final String locale;
+    private final Template[] messages;
+    private final Map<String, Template> intentReplies;
+    private final Map<String, Template> symptomCare;
+    private final int urgentAfterDays;
+    private final Lexicon lexicon;
+
+    private KnowledgeCatalog(String locale, Template[] messages, Map<String, Template> intentReplies,
+                             Map<String, Template> symptomCare, int urgentAfterDays, Lexicon lexicon) {
+        this.locale = locale;
+        this.messages = messages;
+        this.intentReplies = intentReplies;
+        this.symptomCare = symptomCare;
+        this.urgentAfterDays = urgentAfterDays;
+        this.lexicon = lexicon;
+    }
+
+    /**
+     * Compiles one knowledge-base document (see {@code knowledge-base/en.json}).
+     * Every {@link Message} is required; a missing one, an unknown placeholder or a
+     * malformed section fails the whole catalog.
+     */
+    public static KnowledgeCatalog compile(JsonNode root) {
+        String locale = text(root, "locale", "document");
+        String where = "knowledge base '" + locale + "'";
+        Map<String, String> none = Map.of();
+
+        JsonNode messageNodes = section(root, "messages", where);
+        Template[] messages = new Template[Message.values().length];
+        for (Message message : Message.values()) {
+            messages[message.ordinal()] = template(text(messageNodes, message.key, where + " messages"), none, where);
+        }
+
+        List<Lexicon.Entry> entries = new ArrayList<>();
+        Map<String, Template> intentReplies = new HashMap<>();
+        // Object order is the fallback classifier's priority order
+        for (Iterator<Map.Entry<String, JsonNode>> it = section(root, "intents", where).fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> intent = it.next();
+            for (JsonNode keyword : intent.getValue().path("keywords")) {
+                entries.add(new Lexicon.Entry(Lexicon.Kind.INTENT, keyword.asText(), intent.getKey()));
+            }
+            if (intent.getValue().has("reply")) {
+                intentReplies.put(intent.getKey(), template(intent.getValue().get("reply").asText(), none, where));
+            }
+        }
+
+        Map<String, Template> symptomCare = new HashMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> it = section(root, "symptoms", where).fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> symptom = it.next();
+            String name = symptom.getKey().toLowerCase();
+            JsonNode body = symptom.getValue();
+            Map<String, String> constants = Map.of("medicine", body.path("medicine").asText(""));
+            symptomCare.put(name, template(text(body, "care", where + " symptom '" + name + "'"), constants, where));
+            // The canonical name and every alias detect the symptom, and each one is also
+            // a "symptom" keyword for the fallback classifier
+            List<String> phrases = new ArrayList<>();
+            phrases.add(name);
+            body.path("keywords").forEach(keyword -> phrases.add(keyword.asText()));
+            for (String phrase : phrases) {
+                entries.add(new Lexicon.Entry(Lexicon.Kind.SYMPTOM, phrase, name));
+                entries.add(new Lexicon.Entry(Lexicon.Kind.INTENT, phrase, SYMPTOM_INTENT));
+            }
+        }
+
+        JsonNode details = section(root, "details", where);
+        for (Iterator<Map.Entry<String, JsonNode>> it = section(details, "durations", where).fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> duration = it.next();
+            if (!duration.getValue().canConvertToInt()) {
+                throw new IllegalArgumentException(where + ": duration '" + duration.getKey() + "' must be a number of days");
+            }
+            entries.add(new Lexicon.Entry(Lexicon.Kind.DURATION, duration.getKey(), duration.getValue().asText()));
+        }
+        for (JsonNode phrase : details.path("severe")) {
+            entries.add(new Lexicon.Entry(Lexicon.Kind.SEVERITY, phrase.asText(), "severe"));
+        }
+        for (JsonNode phrase : details.path("mild")) {
+            entries.add(new Lexicon.Entry(Lexicon.Kind.SEVERITY, phrase.asText(), "mild"));
+        }
+        for (JsonNode phrase : details.path("escalation")) {
+            entries.add(new Lexicon.Entry(Lexicon.Kind.ESCALATION, phrase.asText(), "true"));
+        }
+        int urgentAfterDays = details.path("urgentAfterDays").asInt(3);
+
+        return new KnowledgeCatalog(locale, messages, Map.copyOf(intentReplies), Map.copyOf(symptomCare),
+                urgentAfterDays, new Lexicon(entries));
+    }
+
+    public String getLocale() {
+        return locale;
+    }
+
+    public Lexicon getLexicon() {
+        return lexicon;
+    }
+
+    public Template message(Message message) {
+        return messages[message.ordinal()];
+    }
+
+    /** Fixed reply for a classified intent, or the "unknown" reply. */
+    public Template intentReply(String category) {
+        Template reply = intentReplies.get(category);
+        return reply != null ? reply : messages[Message.UNKNOWN.ordinal()];
+    }
+
+    /** Care and medicine advice for a canonical symptom name, or the generic advice. */
+    public Template symptomCare(String symptom) {
+        Template care = symptomCare.get(symptom);
+        return care != null ? care : messages[Message.DEFAULT_CARE.ordinal()];
+    }
+
+    // Severe, escalating, or lasting at least this many days sends the user to a doctor
+    public int getUrgentAfterDays() {
+        return urgentAfterDays;
+    }
+
+    public int getIntentCount() {
+        return intentReplies.size();
+    }
+
+    public int getSymptomCount() {
+        return symptomCare.size();
+    }
+
+    private static JsonNode section(JsonNode node, String field, String where) {
+        JsonNode section = node.get(field);
+        if (section == null || !section.isObject()) {
+            throw new IllegalArgumentException(where + ": missing object '" + field + "'");
+        }
+        return section;
+    }
+
+    private static String text(JsonNode node, String field, String where) {
+        JsonNode value = node.get(field);
+        if (value == null || !value.isTextual()) {
+            throw new IllegalArgumentException(where + ": missing text '" + field + "'");
+        }
+        return value.asText();
+    }
+
+    private static Template template(String text, Map<String, String> constants, String where) {
+        try {
+            return Template.compile(text, constants);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(where + ": " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.chatbot.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Symptom, intent-keyword, duration, severity and escalation phrases compiled into
+ * one {@link KeywordMatcher}, so a single scan of a message answers every keyword
+ * question the pipeline asks about it. Built from a {@link KnowledgeCatalog}.
+ */
+public class Lexicon {
+
+    private static final String UNKNOWN = "unknown";
+
+    public enum Kind {
+        /** phrase -> canonical symptom name */
+        SYMPTOM,
+        /** phrase -> category; categories are tried in the order they first appear */
+        INTENT,
+        /** phrase -> number of days (digits in the input are always read as days) */
+        DURATION,
+        /** phrase -> severe | mild */
+        SEVERITY,
+        /** phrase -> true */
+        ESCALATION
+    }
+
+    public record Entry(Kind kind, String phrase, String value) {
+    }
+
+    private final KeywordMatcher matcher;
+    // Per matcher pattern; a phrase may carry several kinds at once (e.g. "fever")
+    private final String[] symptomOf;
+    private final int[] intentRankOf;
+    private final int[] daysOf;
+    private final boolean[] severeOf;
+    private final boolean[] escalationOf;
+    private final String[] intentsByRank;
+
+    public Lexicon(List<Entry> entries) {
+        Map<String, Integer> phraseIndex = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            phraseIndex.putIfAbsent(entry.phrase().trim().toLowerCase(), phraseIndex.size());
+        }
+
+        int n = phraseIndex.size();
+        symptomOf = new String[n];
+        intentRankOf = new int[n];
+        daysOf = new int[n];
+        severeOf = new boolean[n];
+        escalationOf = new boolean[n];
+        Arrays.fill(intentRankOf, Integer.MAX_VALUE);
+        Arrays.fill(daysOf, -1);
+
+        List<String> intents = new ArrayList<>();
+        for (Entry entry : entries) {
+            int p = phraseIndex.get(entry.phrase().trim().toLowerCase());
+            String value = entry.value();
+            switch (entry.kind()) {
+                case SYMPTOM:
+                    symptomOf[p] = value.toLowerCase();
+                    break;
+                case INTENT:
+                    if (!intents.contains(value)) intents.add(value);
+                    intentRankOf[p] = Math.min(intentRankOf[p], intents.indexOf(value));
+                    break;
+                case DURATION:
+                    daysOf[p] = Integer.parseInt(value);
+                    break;
+                case SEVERITY:
+                    severeOf[p] = "severe".equals(value);
+                    break;
+                case ESCALATION:
+                    escalationOf[p] = Boolean.parseBoolean(value);
+                    break;
+            }
+        }
+        intentsByRank = intents.toArray(new String[0]);
+        matcher = new KeywordMatcher(new ArrayList<>(phraseIndex.keySet()));
+    }
+
+    public int getPhraseCount() {
+        return matcher.getPatternCount();
+    }
+
+    /** Runs the automaton once over {@code input} and collects every kind of hit. */
+    public Match scan(CharSequence input) {
+        Match match = new Match(input);
+        matcher.match(input, match);
+        return match;
+    }
+
+    public List<String> detectSymptoms(CharSequence input) {
+        return scan(input).symptoms;
+    }
+
+    // An NER entity counts only if it is itself the canonical name of a symptom it mentions
+    public boolean isSymptom(String entity) {
+        return scan(entity).symptoms.contains(entity.toLowerCase());
+    }
+
+    public String classify(CharSequence input) {
+        return scan(input).getIntent();
+    }
+
+    public ParsedDetails parseDetails(CharSequence input) {
+        return scan(input).getDetails();
+    }
+
+    /** Hits from one scan. Symptoms are de-duplicated and in order of appearance. */
+    public final class Match implements KeywordMatcher.MatchHandler {
+        private final CharSequence input;
+        private final List<String> symptoms = new ArrayList<>(2);
+        private int intentRank = Integer.MAX_VALUE;
+        // Bit per intent rank matched anywhere / matched as whole words (rank 63 stands for all beyond)
+        private long intentRanks;
+        private long wordIntentRanks;
+        private int durationStart = Integer.MAX_VALUE;
+        private int days = -1;
+        private boolean severe;
+        private boolean escalating;
+
+        private Match(CharSequence input) {
+            this.input = input;
+        }
+
+        @Override
+        public void onMatch(int pattern, int start, int end) {
+            String symptom = symptomOf[pattern];
+            if (symptom != null && !symptoms.contains(symptom)) symptoms.add(symptom);
+            int rank = intentRankOf[pattern];
+            if (rank != Integer.MAX_VALUE) {
+                if (rank < intentRank) intentRank = rank;
+                long bit = 1L << Math.min(rank, 63);
+                intentRanks |= bit;
+                if (isWord(start, end)) wordIntentRanks |= bit;
+            }
+            if (daysOf[pattern] >= 0 && start < durationStart) {
+                durationStart = start;
+                days = daysOf[pattern];
+            }
+            severe |= severeOf[pattern];
+            escalating |= escalationOf[pattern];
+        }
+
+        public List<String> getSymptoms() {
+            return symptoms;
+        }
+
+        /** Highest-priority intent keyword category, or "unknown". */
+        public String getIntent() {
+            return intentRank < intentsByRank.length ? intentsByRank[intentRank] : UNKNOWN;
+        }
+
+        /**
+         * The intent category if it is the only one the message mentions, at least once
+         * as a whole word, and the message has no symptom or duration phrase; else null.
+         */
+        public String getUnambiguousIntent() {
+            if (wordIntentRanks == 0 || Long.bitCount(intentRanks) != 1 || !symptoms.isEmpty()
+                    || durationStart != Integer.MAX_VALUE) {
+                return null;
+            }
+            int rank = Long.numberOfTrailingZeros(intentRanks);
+            return rank < 63 ? intentsByRank[rank] : null;
+        }
+
+        public ParsedDetails getDetails() {
+            // A number earlier in the message than any duration phrase wins ("2 days since yesterday")
+            int resolvedDays = days;
+            for (int i = 0; i < Math.min(durationStart, input.length()); i++) {
+                if (Character.isDigit(input.charAt(i))) {
+                    resolvedDays = parseDays(i);
+                    break;
+                }
+            }
+            return new ParsedDetails(resolvedDays, severe ? "severe" : "mild", escalating);
+        }
+
+        // Starts a word and ends one; phrases of 4+ chars may also be a stem ("thank" in "thanks")
+        private boolean isWord(int start, int end) {
+            if (start > 0 && Character.isLetterOrDigit(input.charAt(start - 1))) {
+                return false;
+            }
+            return end - start >= 4 || end == input.length() || !Character.isLetterOrDigit(input.charAt(end));
+        }
+
+        private int parseDays(int start) {
+            long value = 0;
+            for (int i = start; i < input.length() && Character.isDigit(input.charAt(i)); i++) {
+                value = Math.min(Integer.MAX_VALUE, value * 10 + Character.digit(input.charAt(i), 10));
+            }
+            return (int) value;
+        }
+    }
+}
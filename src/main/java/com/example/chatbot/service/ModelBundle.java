@@ -0,0 +1,97 @@
+package com.example.chatbot.service;
+
+import opennlp.tools.doccat.DoccatModel;
+import opennlp.tools.namefind.TokenNameFinderModel;
+import opennlp.tools.tokenize.TokenizerModel;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One immutable, versioned set of models together with the engine pool built over
+ * them. A turn reads the current bundle once and uses it throughout, so a swap in
+ * {@link ModelRegistry} never changes models under a request that is in flight.
+ */
+public final class ModelBundle {
+
+    private final long version;
+    private final String source;
+    private final Instant createdAt;
+    private final double heldOutAccuracy;
+    private final TokenizerModel tokenizerModel;
+    private final DoccatModel doccatModel;
+    private final TokenNameFinderModel nerModel;
+    private final PhraseTable phraseTable;
+    private final CompiledDoccatModel compiledDoccatModel;
+    private final NLPEnginePool enginePool;
+
+    ModelBundle(long version, String source, double heldOutAccuracy, TokenizerModel tokenizerModel,
+                DoccatModel doccatModel, TokenNameFinderModel nerModel, PhraseTable phraseTable,
+                CompiledDoccatModel compiledDoccatModel, LongAdder verifyMismatches, int poolSize,
+                int maxEngines, long borrowTimeoutMs) {
+        this.version = version;
+        this.source = source;
+        this.createdAt = Instant.now();
+        this.heldOutAccuracy = heldOutAccuracy;
+        this.tokenizerModel = tokenizerModel;
+        this.doccatModel = doccatModel;
+        this.nerModel = nerModel;
+        this.phraseTable = phraseTable;
+        this.compiledDoccatModel = compiledDoccatModel;
+        this.enginePool = new NLPEnginePool(tokenizerModel, doccatModel, nerModel, compiledDoccatModel,
+                verifyMismatches, poolSize, maxEngines, borrowTimeoutMs);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /** Where the doccat model came from, e.g. "classpath" or "upload". */
+    public String getSource() {
+        return source;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    /** Accuracy on the held-out split when this bundle was trained, or NaN if it was loaded. */
+    public double getHeldOutAccuracy() {
+        return heldOutAccuracy;
+    }
+
+    public TokenizerModel getTokenizerModel() {
+        return tokenizerModel;
+    }
+
+    public DoccatModel getDoccatModel() {
+        return doccatModel;
+    }
+
+    public TokenNameFinderModel getNerModel() {
+        return nerModel;
+    }
+
+    /** Training phrases of the doccat model, for the cascade's phrase tier. */
+    public PhraseTable getPhraseTable() {
+        return phraseTable;
+    }
+
+    /** The doccat model compiled for fast scoring, or null if engines use OpenNLP's categorizer. */
+    public CompiledDoccatModel getCompiledDoccatModel() {
+        return compiledDoccatModel;
+    }
+
+    public NLPEnginePool getEnginePool() {
+        return enginePool;
+    }
+
+    /** What the registry remembers of a bundle once it is retired: no models, no engines. */
+    public Descriptor describe() {
+        return new Descriptor(version, source, createdAt, heldOutAccuracy,
+                compiledDoccatModel != null ? "compiled" : "opennlp");
+    }
+
+    public record Descriptor(long version, String source, Instant createdAt, double heldOutAccuracy, String classifier) {
+    }
+}
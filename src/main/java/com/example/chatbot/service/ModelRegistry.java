@@ -0,0 +1,376 @@
+package com.example.chatbot.service;
+
+import jakarta.annotation.PreDestroy;
+import opennlp.tools.doccat.DoccatModel;
+import opennlp.tools.doccat.DocumentCategorizerEvaluator;
+import opennlp.tools.doccat.DocumentCategorizerME;
+import opennlp.tools.doccat.DocumentSample;
+import opennlp.tools.namefind.TokenNameFinderModel;
+import opennlp.tools.tokenize.TokenizerModel;
+import opennlp.tools.util.ObjectStreamUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds the current {@link ModelBundle} and replaces it without blocking readers.
+ * Requests call {@link #current()} (a single volatile read); retraining runs on one
+ * background thread, with OpenNLP training on a single thread so it takes at most one
+ * core, validates the candidate on a held-out split and only then publishes a new
+ * bundle. Requests already holding the old bundle finish on it and it is collected
+ * once they are done; the history only keeps {@link ModelBundle.Descriptor}s.
+ * <p>
+ * Accepted retrains are saved to {@code nlp.retrain.store-dir} when it is set and
+ * reloaded from there at startup. Without it they live in memory only, and a restart
+ * goes back to the model shipped in the jar. A stored retrain records a hash of the
+ * packaged {@code training.txt}; after a redeploy that ships different training data,
+ * the packaged model wins and the stored retrain is ignored.
+ */
+@Component
+public class ModelRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(ModelRegistry.class);
+
+    private static final int HISTORY_SIZE = 10;
+    private static final String STORED_MODEL = "en-doccat.bin";
+    private static final String STORED_TRAINING = "training.txt";
+    // SHA-256 of the packaged training.txt the stored retrain replaced
+    private static final String STORED_PACKAGED_HASH = "packaged-training.sha256";
+    private static final String PACKAGED_TRAINING = "/training.txt";
+
+    @Autowired
+    private ClassificationCache classificationCache;
+
+    // Engines kept warm for reuse; 0 means one per available core
+    @Value("${nlp.engine.pool-size:0}")
+    private int enginePoolSize;
+
+    // Most engines borrowed at once per bundle; 0 means four times the pool size
+    @Value("${nlp.engine.max-engines:0}")
+    private int maxEngines;
+
+    // How long a turn waits for an engine once max-engines are busy
+    @Value("${nlp.engine.borrow-timeout-ms:1000}")
+    private long borrowTimeoutMs;
+
+    // Every n-th sample of each category is held out to validate a retrained model
+    @Value("${nlp.retrain.holdout-every:5}")
+    private int holdoutEvery;
+
+    // Candidates scoring below this on the held-out split are rejected
+    @Value("${nlp.retrain.min-accuracy:0.6}")
+    private double minAccuracy;
+
+    // How engines score the doccat model: opennlp, compiled (verified at publish) or verify (both, serve OpenNLP)
+    @Value("${nlp.classifier.mode:compiled}")
+    private ClassifierMode classifierMode;
+
+    // Largest per-outcome probability difference from OpenNLP the compiled classifier may show
+    @Value("${nlp.classifier.tolerance:1e-4}")
+    private double classifierTolerance;
+
+    // Optional training file on disk; retrained automatically when it changes
+    @Value("${nlp.training.file:}")
+    private String trainingFile;
+
+    // Where accepted retrains are saved and reloaded from at startup; empty keeps them in memory only
+    @Value("${nlp.retrain.store-dir:}")
+    private String storeDir;
+
+    private final AtomicReference<ModelBundle> current = new AtomicReference<>();
+    private final Deque<ModelBundle.Descriptor> history = new ArrayDeque<>();
+    private final AtomicBoolean retraining = new AtomicBoolean();
+    private final LongAdder classifierMismatches = new LongAdder();
+    private volatile RetrainResult lastResult;
+    private volatile FileTime trainingFileSeen;
+    private long nextVersion = 1;
+
+    private final ExecutorService retrainExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "model-retrain");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** The bundle new requests should use. Never null once NLPService has started. */
+    public ModelBundle current() {
+        return current.get();
+    }
+
+    /**
+     * Publishes a freshly loaded set of models as a new version. {@code samples} are
+     * the doccat model's training samples, if known; they become its phrase table.
+     */
+    public synchronized ModelBundle publish(TokenizerModel tokenizerModel, DoccatModel doccatModel,
+                                            TokenNameFinderModel nerModel, List<DocumentSample> samples,
+                                            String source, double heldOutAccuracy) {
+        int poolSize = enginePoolSize > 0 ? enginePoolSize : Runtime.getRuntime().availableProcessors();
+        CompiledDoccatModel compiled = compileClassifier(doccatModel, samples);
+        ModelBundle bundle = new ModelBundle(nextVersion++, source, heldOutAccuracy,
+                tokenizerModel, doccatModel, nerModel, PhraseTable.of(samples), compiled,
+                compiled != null && classifierMode == ClassifierMode.VERIFY ? classifierMismatches : null, poolSize,
+                Math.max(poolSize, maxEngines > 0 ? maxEngines : 4 * poolSize), borrowTimeoutMs);
+        current.set(bundle);
+        history.addFirst(bundle.describe());
+        while (history.size() > HISTORY_SIZE) {
+            history.removeLast();
+        }
+        // Entries are keyed by version so stale ones can't be served; this just frees them
+        classificationCache.invalidateAll();
+        log.info("Model bundle v{} ({}, {} classifier) is now live.", bundle.getVersion(), source,
+                compiled != null ? "compiled" : "OpenNLP");
+        return bundle;
+    }
+
+    /** Live classifications where the compiled classifier disagreed with OpenNLP (verify mode only). */
+    public long getClassifierMismatchCount() {
+        return classifierMismatches.sum();
+    }
+
+    public synchronized List<ModelBundle.Descriptor> getHistory() {
+        return new ArrayList<>(history);
+    }
+
+    public boolean isRetraining() {
+        return retraining.get();
+    }
+
+    public RetrainResult getLastResult() {
+        return lastResult;
+    }
+
+    /**
+     * Retrains the doccat model from "category text" lines in the background.
+     * Returns null if a retrain is already running.
+     */
+    public CompletableFuture<RetrainResult> retrain(byte[] trainingData, String source) {
+        if (!retraining.compareAndSet(false, true)) {
+            return null;
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                RetrainResult result = trainAndValidate(trainingData, source);
+                if (result.accepted()) {
+                    store(trainingData, result.version());
+                }
+                lastResult = result;
+                log.info("Retrain from {}: {}", source, result.message());
+                return result;
+            } catch (Exception e) {
+                RetrainResult result = new RetrainResult(false, -1, null, "Retrain failed: " + e.getMessage());
+                lastResult = result;
+                log.error("Retrain from {} failed", source, e);
+                return result;
+            } finally {
+                retraining.set(false);
+            }
+        }, retrainExecutor);
+    }
+
+    // Picks up edits to nlp.training.file without a restart
+    @Scheduled(fixedDelayString = "${nlp.training.poll-interval-ms:30000}")
+    public void pollTrainingFile() {
+        if (trainingFile.isBlank()) {
+            return;
+        }
+        try {
+            Path path = Paths.get(trainingFile);
+            if (!Files.exists(path)) {
+                return;
+            }
+            FileTime modified = Files.getLastModifiedTime(path);
+            if (modified.equals(trainingFileSeen)) {
+                return;
+            }
+            if (retrain(Files.readAllBytes(path), path.toString()) != null) {
+                trainingFileSeen = modified;
+            }
+        } catch (IOException e) {
+            log.warn("Could not read training file {}: {}", trainingFile, e.getMessage());
+        }
+    }
+
+    private RetrainResult trainAndValidate(byte[] trainingData, String source) throws IOException {
+        List<DocumentSample> samples = DoccatModelTrainer.readSamples(new ByteArrayInputStream(trainingData));
+        List<DocumentSample> train = new ArrayList<>();
+        List<DocumentSample> heldOut = new ArrayList<>();
+        Map<String, Integer> seen = new HashMap<>();
+        for (DocumentSample sample : samples) {
+            int n = seen.merge(sample.getCategory(), 1, Integer::sum);
+            // Stratified: the same share of every category is held out
+            (n % holdoutEvery == 0 ? heldOut : train).add(sample);
+        }
+        if (heldOut.isEmpty() || train.isEmpty()) {
+            return new RetrainResult(false, -1, null,
+                    "Rejected: " + samples.size() + " samples are too few to hold out a validation split");
+        }
+
+        DoccatModel candidate = DoccatModelTrainer.train(train);
+        DocumentCategorizerEvaluator evaluator = new DocumentCategorizerEvaluator(new DocumentCategorizerME(candidate));
+        evaluator.evaluate(ObjectStreamUtils.createObjectStream(heldOut));
+        double accuracy = evaluator.getAccuracy();
+        if (accuracy < minAccuracy) {
+            return new RetrainResult(false, -1, accuracy, String.format(
+                    "Rejected: held-out accuracy %.3f is below %.3f", accuracy, minAccuracy));
+        }
+
+        // The validated candidate itself goes live, so the reported accuracy is the live model's.
+        // The phrase table still gets every sample: an exact training phrase needs no model
+        ModelBundle base = current();
+        ModelBundle bundle = publish(base != null ? base.getTokenizerModel() : null, candidate,
+                base != null ? base.getNerModel() : null, samples, source, accuracy);
+        return new RetrainResult(true, bundle.getVersion(), accuracy, String.format(
+                "Accepted as v%d with held-out accuracy %.3f", bundle.getVersion(), accuracy));
+    }
+
+    /**
+     * The doccat model and training samples of the last stored retrain, or null if
+     * nothing is stored (or {@code nlp.retrain.store-dir} is not set), or if it was
+     * stored over a different packaged model than the one in this build.
+     */
+    public StoredModel loadStored() {
+        if (storeDir.isBlank()) {
+            return null;
+        }
+        Path dir = Paths.get(storeDir);
+        Path model = dir.resolve(STORED_MODEL);
+        Path training = dir.resolve(STORED_TRAINING);
+        Path packagedHash = dir.resolve(STORED_PACKAGED_HASH);
+        if (!Files.exists(model) || !Files.exists(training)) {
+            return null;
+        }
+        try {
+            String expected = packagedTrainingHash();
+            if (!Files.exists(packagedHash) || !Files.readString(packagedHash).trim().equals(expected)) {
+                log.info("The retrain stored in {} predates this build's training.txt; using the packaged model.", dir);
+                return null;
+            }
+        } catch (IOException e) {
+            log.error("Could not check the stored model in {}; using the packaged one", dir, e);
+            return null;
+        }
+        try (InputStream modelIn = new BufferedInputStream(Files.newInputStream(model));
+             InputStream trainingIn = Files.newInputStream(training)) {
+            StoredModel stored = new StoredModel(new DoccatModel(modelIn), DoccatModelTrainer.readSamples(trainingIn));
+            log.info("Loaded the last accepted retrain from {}.", dir);
+            return stored;
+        } catch (IOException e) {
+            log.error("Could not load the stored model from {}; using the packaged one", dir, e);
+            return null;
+        }
+    }
+
+    // Model and its training data, each written to a temp file and moved into place
+    private void store(byte[] trainingData, long version) {
+        ModelBundle bundle = current();
+        if (storeDir.isBlank()) {
+            log.warn("Model v{} is not persisted (nlp.retrain.store-dir is not set); a restart reverts to the packaged model.",
+                    version);
+            return;
+        }
+        if (bundle == null || bundle.getVersion() != version) {
+            return;
+        }
+        try {
+            Path dir = Files.createDirectories(Paths.get(storeDir));
+            Path modelTmp = Files.createTempFile(dir, STORED_MODEL, ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(modelTmp))) {
+                bundle.getDoccatModel().serialize(out);
+            }
+            Path trainingTmp = Files.createTempFile(dir, STORED_TRAINING, ".tmp");
+            Files.write(trainingTmp, trainingData);
+            Path hashTmp = Files.createTempFile(dir, STORED_PACKAGED_HASH, ".tmp");
+            Files.writeString(hashTmp, packagedTrainingHash());
+            Files.move(hashTmp, dir.resolve(STORED_PACKAGED_HASH), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(trainingTmp, dir.resolve(STORED_TRAINING), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(modelTmp, dir.resolve(STORED_MODEL), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Model v{} stored in {}.", version, dir);
+        } catch (IOException e) {
+            log.error("Could not store model v{} in {}; it is live but a restart reverts to the previous one", version, storeDir, e);
+        }
+    }
+
+    // Identifies the packaged model: the build trains it from this file
+    private String packagedTrainingHash() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream(PACKAGED_TRAINING)) {
+            if (in == null) {
+                return "none";
+            }
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(in.readAllBytes()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Null when the engines should use OpenNLP: disabled, unsupported model, or outside the tolerance
+    private CompiledDoccatModel compileClassifier(DoccatModel doccatModel, List<DocumentSample> samples) {
+        if (doccatModel == null || classifierMode == ClassifierMode.OPENNLP) {
+            return null;
+        }
+        CompiledDoccatModel compiled = CompiledDoccatModel.compile(doccatModel, classifierTolerance);
+        if (compiled == null) {
+            log.info("Doccat model uses features the compiled classifier does not support; using OpenNLP.");
+            return null;
+        }
+        if (samples != null && !samples.isEmpty()) {
+            List<String[]> documents = new ArrayList<>(samples.size());
+            for (DocumentSample sample : samples) {
+                documents.add(sample.getText());
+            }
+            CompiledDoccatModel.Verification verification = compiled.verify(doccatModel, documents);
+            if (!verification.passed()) {
+                log.warn("Compiled classifier disagrees with OpenNLP on {} of {} training samples (max difference {}); using OpenNLP.",
+                        verification.mismatches(), verification.documents(), verification.maxDifference());
+                return null;
+            }
+            log.info("Compiled classifier matches OpenNLP on {} training samples (max difference {}).",
+                    verification.documents(), verification.maxDifference());
+        }
+        return compiled;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retrainExecutor.shutdownNow();
+    }
+
+    public enum ClassifierMode {
+        OPENNLP, COMPILED, VERIFY
+    }
+
+    public record StoredModel(DoccatModel doccatModel, List<DocumentSample> samples) {
+    }
+
+    /** Outcome of one background retrain. {@code version} is -1 when rejected; accuracy is null if never measured. */
+    public record RetrainResult(boolean accepted, long version, Double heldOutAccuracy, String message) {
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.chatbot.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, lock-free multi-producer/single-consumer ring of preallocated slots
+ * (Vyukov's sequence-per-slot scheme). Producers {@link #tryClaim()} a slot, fill it
+ * and {@link #publish(long)} it; a full ring makes {@code tryClaim} fail at once
+ * instead of blocking. One consumer thread {@link #drain drains} slots in order.
+ */
+final class MpscRingBuffer<T> {
+
+    private final Object[] slots;
+    // Per slot: == position when free for that producer, == position + 1 once published
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // Only touched by the consumer thread
+    private long head;
+
+    MpscRingBuffer(int capacity, Supplier<T> factory) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        slots = new Object[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = factory.get();
+            sequences.set(i, i);
+        }
+        mask = capacity - 1;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    /** Position of a free slot now owned by the caller, or -1 when the ring is full. */
+    long tryClaim() {
+        long position = tail.get();
+        while (true) {
+            long diff = sequences.get((int) position & mask) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    return position;
+                }
+                position = tail.get();
+            } else if (diff < 0) {
+                return -1;
+            } else {
+                // Another producer claimed this position first
+                position = tail.get();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(long position) {
+        return (T) slots[(int) position & mask];
+    }
+
+    /** Hands a claimed slot to the consumer; the slot must not be touched afterwards. */
+    void publish(long position) {
+        sequences.lazySet((int) position & mask, position + 1);
+    }
+
+    /**
+     * Passes up to {@code max} published slots, in claim order, to {@code handler}
+     * and frees them. Stops early at the first slot not yet published. Consumer only.
+     */
+    @SuppressWarnings("unchecked")
+    int drain(Consumer<T> handler, int max) {
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            handler.accept((T) slots[index]);
+            sequences.lazySet(index, head + slots.length);
+            head++;
+            drained++;
+        }
+        return drained;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.chatbot.service;
+
+import opennlp.tools.doccat.DoccatModel;
+import opennlp.tools.doccat.DocumentCategorizerME;
+import opennlp.tools.namefind.NameFinderME;
+import opennlp.tools.namefind.TokenNameFinderModel;
+import opennlp.tools.tokenize.TokenizerME;
+import opennlp.tools.tokenize.TokenizerModel;
+import opennlp.tools.util.Span;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One set of OpenNLP inference objects. The *ME classes keep per-call scratch
+ * state and are not thread-safe, so an engine must only be used by one thread
+ * at a time; borrow it from {@link NLPEnginePool} and give it back when done.
+ * Any component may be null when its model failed to load. The engine also owns
+ * the reply buffer and template context its turn renders into, and the trace the
+ * turn is recorded in, so none of them is allocated per turn.
+ * <p>
+ * The turn's message is normalized into a reused {@link InputText}. Fast-path
+ * messages are scored straight from its token spans; token Strings are only made
+ * when OpenNLP needs them (slow path, NER, verify mode).
+ * <p>
+ * When the bundle has a {@link CompiledDoccatModel} it scores messages instead of
+ * the OpenNLP categorizer; in verify mode both run, the OpenNLP result is served and
+ * every disagreement is counted.
+ */
+public class NLPEngine {
+
+    private static final String ALPHANUMERIC = "^[A-Za-z0-9]+$";
+
+    private final TokenizerME tokenizer;
+    private final DocumentCategorizerME categorizer;
+    private final NameFinderME nameFinder;
+    private final CompiledDoccatModel compiledCategorizer;
+    private final LongAdder verifyMismatches;
+    private final double[] scores;
+    // Whether whitespace spans of a fast-path message are exactly the tokenizer's tokens
+    private final boolean spanTokens;
+    private final InputText input = new InputText();
+    private String[] inputTokens;
+    private final StringBuilder replyBuffer = new StringBuilder(256);
+    private final ReplyContext replyContext = new ReplyContext();
+    private final TurnTrace trace = new TurnTrace();
+
+    NLPEngine(TokenizerModel tokenizerModel, DoccatModel doccatModel, TokenNameFinderModel nerModel,
+              CompiledDoccatModel compiledCategorizer, LongAdder verifyMismatches) {
+        this.tokenizer = tokenizerModel != null ? new TokenizerME(tokenizerModel) : null;
+        this.categorizer = doccatModel != null ? new DocumentCategorizerME(doccatModel) : null;
+        this.nameFinder = nerModel != null ? new NameFinderME(nerModel) : null;
+        this.compiledCategorizer = categorizer != null ? compiledCategorizer : null;
+        this.verifyMismatches = verifyMismatches;
+        this.scores = this.compiledCategorizer != null ? new double[this.compiledCategorizer.getOutcomeCount()] : null;
+        // TokenizerME never splits a whitespace token matching the alphanumeric pattern
+        this.spanTokens = tokenizerModel == null || (tokenizerModel.getFactory().isUseAlphaNumericOptimization()
+                && ALPHANUMERIC.equals(tokenizerModel.getFactory().getAlphaNumericPattern().pattern()));
+    }
+
+    /** Normalizes this turn's message; the result is valid until the engine is released. */
+    InputText normalize(String message) {
+        input.set(message);
+        inputTokens = null;
+        return input;
+    }
+
+    /** Tokens of the normalized message, made once per turn. */
+    public String[] getTokens() {
+        if (inputTokens == null) {
+            if (input.isFastPath() && spanTokens) {
+                String[] tokens = new String[input.tokenCount()];
+                for (int i = 0; i < tokens.length; i++) {
+                    tokens[i] = input.token(i);
+                }
+                inputTokens = tokens;
+            } else {
+                inputTokens = tokenize(input.toString());
+            }
+        }
+        return inputTokens;
+    }
+
+    /** Whether {@link #categorizeInput()} can score the message without token Strings. */
+    boolean canScoreSpans() {
+        return compiledCategorizer != null && verifyMismatches == null && input.isFastPath() && spanTokens;
+    }
+
+    /** {@link #categorize} for the normalized message, straight from its spans when possible. */
+    public double[] categorizeInput() {
+        if (canScoreSpans()) {
+            return compiledCategorizer.categorize(input.buffer(), input.spans(), input.tokenCount(), scores);
+        }
+        return categorize(getTokens());
+    }
+
+    public String[] tokenize(String input) {
+        return (tokenizer != null) ? tokenizer.tokenize(input) : input.split("\\s+");
+    }
+
+    public boolean hasCategorizer() {
+        return categorizer != null;
+    }
+
+    /** Outcome probabilities; may be a reused array, only valid until the next call. */
+    public double[] categorize(String[] tokens) {
+        if (compiledCategorizer == null) {
+            return categorizer.categorize(tokens);
+        }
+        compiledCategorizer.categorize(tokens, scores);
+        if (verifyMismatches != null) {
+            double[] reference = categorizer.categorize(tokens);
+            if (!compiledCategorizer.matches(reference, scores)) {
+                verifyMismatches.increment();
+            }
+            return reference;
+        }
+        return scores;
+    }
+
+    public String getBestCategory(double[] outcomes) {
+        return compiledCategorizer != null
+                ? compiledCategorizer.getBestCategory(outcomes)
+                : categorizer.getBestCategory(outcomes);
+    }
+
+    public boolean hasNameFinder() {
+        return nameFinder != null;
+    }
+
+    public Span[] findNames(String[] tokens) {
+        return nameFinder.find(tokens);
+    }
+
+    public ReplyContext getReplyContext() {
+        return replyContext;
+    }
+
+    TurnTrace getTrace() {
+        return trace;
+    }
+
+    /** Renders {@code template} into the reusable buffer; valid until the next render. */
+    public CharSequence render(Template template) {
+        replyBuffer.setLength(0);
+        template.renderTo(replyBuffer, replyContext);
+        return replyBuffer;
+    }
+
+    // Called before the engine goes back to the pool so the next borrower starts clean
+    void reset() {
+        input.clear();
+        inputTokens = null;
+        replyContext.clear();
+        trace.clear();
+        if (nameFinder != null) {
+            nameFinder.clearAdaptiveData();
+        }
+    }
+}
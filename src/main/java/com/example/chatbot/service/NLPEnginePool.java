@@ -0,0 +1,126 @@
+package com.example.chatbot.service;
+
+import opennlp.tools.doccat.DoccatModel;
+import opennlp.tools.namefind.TokenNameFinderModel;
+import opennlp.tools.tokenize.TokenizerModel;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of {@link NLPEngine}s built over the shared, immutable models. At most
+ * {@code maxEngines} are borrowed at once. While fewer are out, borrowing never
+ * blocks: when every pooled engine is busy a transient engine is created, and on
+ * release at most {@code maxIdle} engines are kept for reuse. Beyond that, a borrow
+ * waits up to {@code borrowTimeoutMs} for an engine to come back and then fails with
+ * {@link EngineUnavailableException}, so engines (and their buffers) stay bounded
+ * under any load.
+ */
+public class NLPEnginePool {
+
+    private final TokenizerModel tokenizerModel;
+    private final DoccatModel doccatModel;
+    private final TokenNameFinderModel nerModel;
+    private final CompiledDoccatModel compiledDoccatModel;
+    private final LongAdder verifyMismatches;
+    private final int maxIdle;
+    private final int maxEngines;
+    private final long borrowTimeoutMs;
+    // One permit per engine that may be borrowed at the same time
+    private final Semaphore permits;
+
+    private final ConcurrentLinkedQueue<NLPEngine> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final LongAdder created = new LongAdder();
+
+    /**
+     * With a {@code compiledDoccatModel}, engines score with it instead of OpenNLP;
+     * with {@code verifyMismatches} too, they run both and count disagreements.
+     */
+    public NLPEnginePool(TokenizerModel tokenizerModel, DoccatModel doccatModel, TokenNameFinderModel nerModel,
+                         CompiledDoccatModel compiledDoccatModel, LongAdder verifyMismatches, int maxIdle,
+                         int maxEngines, long borrowTimeoutMs) {
+        if (maxIdle < 1 || maxEngines < maxIdle) {
+            throw new IllegalArgumentException("Need 1 <= maxIdle <= maxEngines: " + maxIdle + ", " + maxEngines);
+        }
+        this.tokenizerModel = tokenizerModel;
+        this.doccatModel = doccatModel;
+        this.nerModel = nerModel;
+        this.compiledDoccatModel = compiledDoccatModel;
+        this.verifyMismatches = verifyMismatches;
+        this.maxIdle = maxIdle;
+        this.maxEngines = maxEngines;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.permits = new Semaphore(maxEngines);
+        // Warm the pool so the first requests don't pay for engine construction
+        for (int i = 0; i < maxIdle; i++) {
+            idle.offer(newEngine());
+            idleCount.incrementAndGet();
+        }
+    }
+
+    /** Every borrowed engine must be given back with {@link #release}. */
+    public NLPEngine borrow() {
+        if (!permits.tryAcquire()) {
+            try {
+                if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    throw new EngineUnavailableException(maxEngines);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EngineUnavailableException(maxEngines);
+            }
+        }
+        NLPEngine engine = idle.poll();
+        if (engine == null) {
+            try {
+                return newEngine();
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+        idleCount.decrementAndGet();
+        return engine;
+    }
+
+    public void release(NLPEngine engine) {
+        engine.reset();
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.offer(engine);
+        } else {
+            // Pool is full, let the surplus engine be collected
+            idleCount.decrementAndGet();
+        }
+        permits.release();
+    }
+
+    public int getMaxIdle() {
+        return maxIdle;
+    }
+
+    public int getMaxEngines() {
+        return maxEngines;
+    }
+
+    /** Engines currently borrowed. */
+    public int getBusyCount() {
+        return maxEngines - permits.availablePermits();
+    }
+
+    public int getIdleCount() {
+        return idleCount.get();
+    }
+
+    public long getCreatedCount() {
+        return created.sum();
+    }
+
+    private NLPEngine newEngine() {
+        created.increment();
+        return new NLPEngine(tokenizerModel, doccatModel, nerModel, compiledDoccatModel, verifyMismatches);
+    }
+}
@@ -1,384 +1,383 @@
 package com.example.chatbot.service;
 
-import opennlp.tools.doccat.*;
-import opennlp.tools.namefind.NameFinderME;
+import opennlp.tools.doccat.DoccatModel;
+import opennlp.tools.doccat.DocumentSample;
 import opennlp.tools.namefind.TokenNameFinderModel;
-import opennlp.tools.tokenize.TokenizerME;
 import opennlp.tools.tokenize.TokenizerModel;
-import opennlp.tools.util.ObjectStream;
-import opennlp.tools.util.PlainTextByLineStream;
 import opennlp.tools.util.Span;
-import opennlp.tools.util.TrainingParameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
 import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.lang.management.ManagementFactory;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 @Service
 public class NLPService {
 
-    private static final String MODEL_DIR = System.getProperty("user.dir") + File.separator + "models";
-    private static final String DOCCAT_MODEL_FILE = MODEL_DIR + File.separator + "en-doccat.bin";
+    private static final Logger log = LoggerFactory.getLogger(NLPService.class);
+
+    private static final String DOCCAT_MODEL_FILE = "/models/en-doccat.bin";
+    private static final String TRAINING_FILE = "/training.txt";
     private static final String TOKENIZER_MODEL_FILE = "/models/en-token.bin";
     private static final String NER_MODEL_FILE = "/models/en-ner-person.bin";
 
-    private DocumentCategorizerME categorizer;
-    private TokenizerME tokenizer;
-    private NameFinderME nameFinder;
+    // Versioned model bundles; each holds immutable models and the engine pool over them
+    @Autowired
+    private ModelRegistry modelRegistry;
+    private long modelLoadMillis;
 
-    // State management: key=userId, value=state (e.g., "waiting_for_fever_details_1")
-    private Map<String, String> userStates = new HashMap<>();
+    // State management: symptom flows waiting for details, keyed by userId
+    @Autowired
+    private ConversationStateStore stateStore;
     private static final String DEFAULT_USER = "default_user";
 
+    // Reply templates, symptom advice and the keyword lexicon, reloadable at runtime
+    @Autowired
+    private KnowledgeBase knowledgeBase;
+
+    // Categorizer results for frequently repeated phrases
+    @Autowired
+    private ClassificationCache classificationCache;
+
+    // Which classification tiers run, cheapest first
+    @Autowired
+    private ClassificationCascade cascade;
+
+    // Per-stage latency timers and category/state counters
+    @Autowired
+    private PipelineMetrics metrics;
+
+    // Structured per-turn events, written off the request thread
+    @Autowired
+    private ConversationEventLog eventLog;
+
     @PostConstruct
     public void init() {
-        try {
-            Path modelDirPath = Paths.get(MODEL_DIR);
-            if (!Files.exists(modelDirPath)) {
-                Files.createDirectories(modelDirPath);
+        long start = System.nanoTime();
+
+        // The three models are independent, so deserialize them in parallel
+        CompletableFuture<TokenizerModel> tokenizerFuture = CompletableFuture.supplyAsync(this::loadTokenizerModel);
+        CompletableFuture<TokenNameFinderModel> nerFuture = CompletableFuture.supplyAsync(this::loadNerModel);
+        // The last accepted retrain, if one was stored, takes precedence over the packaged model
+        ModelRegistry.StoredModel stored = modelRegistry.loadStored();
+        CompletableFuture<DoccatModel> doccatFuture = stored != null
+                ? CompletableFuture.completedFuture(stored.doccatModel())
+                : CompletableFuture.supplyAsync(this::loadDoccatModel);
+        CompletableFuture<List<DocumentSample>> samplesFuture = stored != null
+                ? CompletableFuture.completedFuture(stored.samples())
+                : CompletableFuture.supplyAsync(this::loadTrainingSamples);
+        ModelBundle bundle = modelRegistry.publish(tokenizerFuture.join(), doccatFuture.join(), nerFuture.join(),
+                samplesFuture.join(), stored != null ? "stored" : "classpath", Double.NaN);
+
+        modelLoadMillis = (System.nanoTime() - start) / 1_000_000;
+        metrics.modelLoadTime(modelLoadMillis);
+        log.info("NLP models loaded and engine pool of {} ready in {} ms.", bundle.getEnginePool().getMaxIdle(),
+                modelLoadMillis);
+    }
+
+    // Cold start as seen by a client: JVM launch until the port accepts /chat traffic
+    @EventListener(ApplicationReadyEvent.class)
+    public void reportColdStart() {
+        log.info("Cold start: ready {} ms after JVM launch (NLP model load {} ms).",
+                ManagementFactory.getRuntimeMXBean().getUptime(), modelLoadMillis);
+    }
+
+    private TokenizerModel loadTokenizerModel() {
+        try (InputStream tokenizerModelIn = getClass().getResourceAsStream(TOKENIZER_MODEL_FILE)) {
+            if (tokenizerModelIn == null) {
+                log.warn("Tokenizer model not found at {}. Using basic tokenization.", TOKENIZER_MODEL_FILE);
+                return null;
             }
+            TokenizerModel model = new TokenizerModel(new BufferedInputStream(tokenizerModelIn));
+            log.info("Tokenizer loaded successfully.");
+            return model;
+        } catch (Exception e) {
+            log.error("Error loading tokenizer", e);
+            return null;
+        }
+    }
 
-            // Load tokenizer with fallback
-            try (InputStream tokenizerModelIn = getClass().getResourceAsStream(TOKENIZER_MODEL_FILE)) {
-                if (tokenizerModelIn == null) {
-                    System.err.println("Warning: Tokenizer model not found at " + TOKENIZER_MODEL_FILE + ". Using basic tokenization.");
-                    tokenizer = null;
-                } else {
-                    TokenizerModel tokenizerModel = new TokenizerModel(tokenizerModelIn);
-                    tokenizer = new TokenizerME(tokenizerModel);
-                    System.out.println("Tokenizer loaded successfully.");
-                }
-            } catch (Exception e) {
-                System.err.println("Error loading tokenizer: " + e.getMessage());
-                tokenizer = null;
+    // Optional, for entity extraction
+    private TokenNameFinderModel loadNerModel() {
+        try (InputStream nerModelIn = getClass().getResourceAsStream(NER_MODEL_FILE)) {
+            if (nerModelIn == null) {
+                log.info("NER model not found; using keyword detection only.");
+                return null;
             }
+            TokenNameFinderModel model = new TokenNameFinderModel(new BufferedInputStream(nerModelIn));
+            log.info("NER model loaded successfully.");
+            return model;
+        } catch (Exception e) {
+            log.error("Error loading NER model", e);
+            return null;
+        }
+    }
 
-            // Load NER model (optional, for entity extraction)
-            try (InputStream nerModelIn = getClass().getResourceAsStream(NER_MODEL_FILE)) {
-                if (nerModelIn != null) {
-                    TokenNameFinderModel nerModel = new TokenNameFinderModel(nerModelIn);
-                    nameFinder = new NameFinderME(nerModel);
-                    System.out.println("NER model loaded successfully.");
-                } else {
-                    System.out.println("NER model not found; using keyword detection only.");
-                    nameFinder = null;
-                }
-            } catch (Exception e) {
-                System.err.println("Error loading NER model: " + e.getMessage());
-                nameFinder = null;
+    // Critical for classification. The build trains it from training.txt and packages it;
+    // training here only happens when running from sources that skipped that step.
+    private DoccatModel loadDoccatModel() {
+        try (InputStream modelIn = getClass().getResourceAsStream(DOCCAT_MODEL_FILE)) {
+            if (modelIn != null) {
+                DoccatModel model = new DoccatModel(new BufferedInputStream(modelIn));
+                log.info("Categorizer loaded from {}.", DOCCAT_MODEL_FILE);
+                return model;
             }
+        } catch (Exception e) {
+            log.error("Error loading categorizer", e);
+        }
 
-            // Load or train doccat model (critical for classification)
-            try {
-                File doccatModelFile = new File(DOCCAT_MODEL_FILE);
-                if (doccatModelFile.exists()) {
-                    try (InputStream modelIn = new FileInputStream(doccatModelFile)) {
-                        DoccatModel model = new DoccatModel(modelIn);
-                        categorizer = new DocumentCategorizerME(model);
-                        System.out.println("Categorizer loaded from disk.");
-                    }
-                } else {
-                    System.out.println("No categorizer model found. Training from training.txt...");
-                    try (InputStream dataIn = getClass().getResourceAsStream("/training.txt")) {
-                        if (dataIn == null) {
-                            throw new RuntimeException("training.txt not found in resources. Cannot train model.");
-                        }
-                        ObjectStream<String> lineStream = new PlainTextByLineStream(() -> dataIn, StandardCharsets.UTF_8);
-                        ObjectStream<DocumentSample> sampleStream = new DocumentSampleStream(lineStream);
-
-                        TrainingParameters params = new TrainingParameters();
-                        params.put(TrainingParameters.ITERATIONS_PARAM, "100");
-                        params.put(TrainingParameters.CUTOFF_PARAM, "1");
-
-                        DoccatModel model = DocumentCategorizerME.train("en", sampleStream, params, new DoccatFactory());
-
-                        try (OutputStream modelOut = new BufferedOutputStream(new FileOutputStream(DOCCAT_MODEL_FILE))) {
-                            model.serialize(modelOut);
-                        }
-
-                        categorizer = new DocumentCategorizerME(model);
-                        System.out.println("Categorizer trained and saved.");
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("Error with categorizer: " + e.getMessage());
-                categorizer = null;
+        log.warn("{} is not on the classpath (build with Maven to package it). Training from training.txt...", DOCCAT_MODEL_FILE);
+        try (InputStream dataIn = getClass().getResourceAsStream(TRAINING_FILE)) {
+            if (dataIn == null) {
+                throw new IOException("training.txt not found in resources. Cannot train model.");
             }
+            DoccatModel model = DoccatModelTrainer.train(dataIn);
+            log.info("Categorizer trained in memory.");
+            return model;
         } catch (Exception e) {
-            System.err.println("Critical error in NLPService init: " + e.getMessage());
-            e.printStackTrace();
-            // Allow app to start with limited functionality
+            log.error("Error with categorizer", e);
+            return null;
         }
     }
 
+    // The packaged model's training phrases, for the cascade's phrase tier
+    private List<DocumentSample> loadTrainingSamples() {
+        try (InputStream dataIn = getClass().getResourceAsStream(TRAINING_FILE)) {
+            if (dataIn == null) {
+                log.warn("{} not found; the phrase tier has no phrases.", TRAINING_FILE);
+                return List.of();
+            }
+            return DoccatModelTrainer.readSamples(dataIn);
+        } catch (IOException e) {
+            log.error("Error reading training phrases", e);
+            return List.of();
+        }
+    }
+
+    // Package-private for the JMH benchmarks, which drive single pipeline stages
+    NLPEnginePool getEnginePool() {
+        return modelRegistry.current().getEnginePool();
+    }
+
+    /**
+     * Whether the session is in a symptom flow, waiting for details; admission lets such
+     * turns in first. Uses {@link ConversationStateStore#peek}, so it never waits on the
+     * remote backend's server.
+     */
+    public boolean isAwaitingDetails(String userId) {
+        return stateStore.peek(userId == null || userId.isBlank() ? DEFAULT_USER : userId) != null;
+    }
+
     public String generateResponse(String userInput) {
         return generateResponse(userInput, DEFAULT_USER);
     }
 
     public String generateResponse(String userInput, String userId) {
+        return generateResponse(userInput, userId, (String) null);
+    }
+
+    /** Reply from the knowledge base of {@code locale}; see {@link KnowledgeBase#current(String)}. */
+    public String generateResponse(String userInput, String userId, String locale) {
+        StringBuilder reply = new StringBuilder(160);
+        generateResponse(userInput, userId, locale, reply::append);
+        return reply.toString();
+    }
+
+    public void generateResponse(String userInput, String userId, Consumer<CharSequence> sink) {
+        generateResponse(userInput, userId, null, sink);
+    }
+
+    /**
+     * Produces the reply as a sequence of parts (e.g. acknowledgement, multi-symptom
+     * note, follow-up question) handed to {@code sink} as soon as each is ready.
+     * Parts carry their own spacing, so concatenating them yields the full reply.
+     * A part may be a reused buffer that is only valid during the call: copy it.
+     * Replies and keywords come from the knowledge base of {@code locale}, or of the
+     * default locale when it is null or not loaded.
+     */
+    public void generateResponse(String userInput, String userId, String locale, Consumer<CharSequence> sink) {
+        // Read the catalog once too, so a knowledge-base reload never splits a reply
+        KnowledgeCatalog kb = knowledgeBase.current(locale);
         if (userInput == null || userInput.trim().isEmpty()) {
-            return "Please say something so I can help.";
+            sink.accept(kb.message(KnowledgeCatalog.Message.EMPTY).toString());
+            return;
         }
 
-        String lowerInput = userInput.toLowerCase();
-        String[] tokens = (tokenizer != null) ? tokenizer.tokenize(lowerInput) : lowerInput.split("\\s+");
-
-        String state = userStates.getOrDefault(userId, "none");
-        
-    // Handle waiting states for symptom details
-   if (state.startsWith("waiting_for_")) {
-       String[] parts = state.split("_");
-       if (parts.length >= 5) {  // Ensure the state has enough parts
-           String symptom = parts[2];  // e.g., "fever"
-           int retry = 1;  // Default retry count
-           try {
-               retry = Integer.parseInt(parts[4]);  // parts[4] is the retry number (e.g., "1")
-           } catch (NumberFormatException e) {
-               System.err.println("Invalid retry count in state: " + state + ". Resetting to default.");
-               retry = 1;
-           }
-
-           ParsedDetails details = parseSymptomDetails(lowerInput);
-           if (details.days >= 0) {
-               userStates.put(userId, "none");
-               return getSymptomAdvice(symptom, details);
-           } else if (retry < 2) {
-               userStates.put(userId, "waiting_for_" + symptom.replace(" ", "_") + "_details_" + (retry + 1));
-               return "I didn't catch that. Please tell me how many days you've had the " + symptom.replace("_", " ") + " (e.g., '3 days', 'yesterday', 'today', or 'morning'). Is it mild or severe?";
-           } else {
-               userStates.put(userId, "none");
-               return "I'm having trouble understanding. For now, rest and monitor your symptoms. If they persist, see a doctor.";
-           }
-       } else {
-           // Malformed state, reset to avoid loops
-           userStates.put(userId, "none");
-           return "Sorry, I lost track. Can you tell me about your symptoms again?";
-       }
-   }
-   
-
-        // Classify input if categorizer is available
-        String category = "unknown";
-        double confidence = 0.0;
-        if (categorizer != null) {
-            double[] outcomes = categorizer.categorize(tokens);
-            category = categorizer.getBestCategory(outcomes);
-            confidence = Arrays.stream(outcomes).max().orElse(0.0);
-        } else {
-            // Fallback to basic classification
-            category = classifyBasic(tokens);
+        if (userId == null || userId.isBlank()) {
+            userId = DEFAULT_USER;
         }
 
-        System.out.println("Input: " + userInput + " | Category: " + category + " | Confidence: " + confidence);
+        long start = System.nanoTime();
+        // Read the bundle once: a concurrent model swap must not change models mid-turn
+        ModelBundle models = modelRegistry.current();
+        NLPEngine engine = models.getEnginePool().borrow();
+        TurnTrace trace = engine.getTrace();
+        trace.timestamp = System.currentTimeMillis();
+        trace.session = userId;
+        trace.message = userInput;
+        trace.modelVersion = models.getVersion();
+        try {
+            generateResponse(models, kb, engine, userInput, userId, sink);
+        } finally {
+            metrics.recordTurn(start, trace);
+            eventLog.publish(trace);
+            models.getEnginePool().release(engine);
+        }
+    }
 
-        if (confidence < 0.5 && categorizer != null) {
-            return "I'm sorry, I didn't understand that. Can you rephrase or provide more details?";
+    private void generateResponse(ModelBundle models, KnowledgeCatalog kb, NLPEngine engine, String userInput,
+                                  String userId, Consumer<CharSequence> sink) {
+        TurnTrace trace = engine.getTrace();
+        long t = System.nanoTime();
+        // Lowercase, cache key and token spans in one pass over reused buffers
+        InputText input = engine.normalize(userInput);
+        t = metrics.record(PipelineStage.NORMALIZE, t, trace);
+
+        ConversationState state = stateStore.get(userId);
+        t = metrics.record(PipelineStage.STATE_LOOKUP, t, trace);
+
+        Lexicon.Match keywords = kb.getLexicon().scan(input);
+        t = metrics.record(PipelineStage.EXTRACT, t, trace);
+
+        // Handle waiting states for symptom details
+        if (state != null) {
+            String symptom = state.symptom();
+            int retry = state.retry();
+            trace.flowStep = retry;
+            engine.getReplyContext().symptom = symptom;
+
+            ParsedDetails details = keywords.getDetails();
+            if (details.days >= 0) {
+                stateStore.remove(userId);
+                metrics.transition(StateTransition.RESOLVED, trace);
+                getSymptomAdvice(kb, engine, details, sink);
+            } else if (retry < 2) {
+                stateStore.put(userId, ConversationState.awaitingDetails(symptom, retry + 1));
+                metrics.transition(StateTransition.RETRIED, trace);
+                emit(engine, kb.message(KnowledgeCatalog.Message.RETRY_DETAILS), sink);
+            } else {
+                stateStore.remove(userId);
+                metrics.transition(StateTransition.ABANDONED, trace);
+                emit(engine, kb.message(KnowledgeCatalog.Message.GIVE_UP), sink);
+            }
+            metrics.record(PipelineStage.RENDER, t, trace);
+            return;
         }
 
-        switch (category) {
-            case "greeting":
-                return "Hello! I'm your health assistant. How can I help you today?";
-            case "thanks":
-                return "You're welcome—glad to help!";
-            case "goodbye":
-                return "Goodbye! Take care and feel better soon.";
-            case "symptom":
-                List<String> symptoms = extractSymptoms(lowerInput, tokens);
-                if (!symptoms.isEmpty()) {
-                    String primarySymptom = symptoms.get(0);
-                    userStates.put(userId, "waiting_for_" + primarySymptom.replace(" ", "_") + "_details_1");
-                    String multipleNote = symptoms.size() > 1 ? " I noticed you mentioned multiple symptoms (" + String.join(", ", symptoms) + ")—let's focus on the " + primarySymptom + " first." : "";
-                    return "I see you have a " + primarySymptom + "." + multipleNote + " How many days have you had it? (e.g., '3 days', 'yesterday', 'today', or 'morning'). Is it mild or severe?";
-                } else {
-                    return "I see—can you tell me how long you've had these symptoms and whether they're getting worse?";
+        // Classify: cheap cascade tiers first, the cache and model only for what they can't settle
+        String normalizedInput = input.cacheKey();
+        Classification result = cascade.shortCircuit(models, normalizedInput, keywords);
+        if (result == null && cascade.isModelEnabled() && engine.hasCategorizer()) {
+            result = classificationCache.get(normalizedInput, models.getVersion());
+            trace.cacheHit = result != null;
+            if (result == null) {
+                // Identical messages arriving together share the first one's classification
+                result = classificationCache.awaitInFlight(normalizedInput, models.getVersion());
+            }
+            if (result == null) {
+                try {
+                    // Token Strings only when the compiled classifier can't read the spans
+                    if (!engine.canScoreSpans()) {
+                        engine.getTokens();
+                        t = metrics.record(PipelineStage.TOKENIZE, t, trace);
+                    }
+                    double[] outcomes = engine.categorizeInput();
+                    result = new Classification(engine.getBestCategory(outcomes),
+                            ClassificationCascade.max(outcomes), CascadeTier.MODEL);
+                } finally {
+                    classificationCache.finish(normalizedInput, result, models.getVersion());
                 }
-            case "medication":
-                return "I can't prescribe medicine, but for common issues like fever or headache, consider acetaminophen or ibuprofen if appropriate. If severe, see a doctor.";
-            case "advice":
-                return "If symptoms are mild, rest and stay hydrated. If you have severe symptoms (chest pain, difficulty breathing, fainting), seek emergency care.";
-            case "appointment":
-                return "I can help book an appointment. What date and time works for you?";
-            case "insurance":
-                return "For billing and insurance questions, please contact support or provide your insurer details.";
-            case "info":
-                return "Our hours are Mon-Fri 9am-5pm. We're located at 123 Health St. You can call support at (555) 123-4567.";
-            default:
-                return "I'm sorry, I didn't understand that. Can you rephrase or provide more details?";
+            }
+        } else if (result == null) {
+            // No model tier: fall back to the highest-priority keyword
+            result = new Classification(keywords.getIntent(), 0.0, CascadeTier.KEYWORD);
         }
+        String category = result.category();
+        t = metrics.record(PipelineStage.CATEGORIZE, t, trace);
+        metrics.category(category);
+        metrics.tier(result.tier(), trace);
+        trace.category = category;
+        trace.confidence = result.confidence();
+
+        if (result.tier() == CascadeTier.MODEL && result.confidence() < cascade.getMinConfidence()) {
+            metrics.lowConfidence();
+            emit(engine, kb.message(KnowledgeCatalog.Message.LOW_CONFIDENCE), sink);
+        } else if ("symptom".equals(category)) {
+            // Only NER needs tokens; keyword extraction already ran on the scan
+            String[] tokens = null;
+            if (cascade.isNerEnabled() && engine.hasNameFinder()) {
+                tokens = engine.getTokens();
+                t = metrics.record(PipelineStage.TOKENIZE, t, trace);
+            }
+            List<String> symptoms = extractSymptoms(engine, kb.getLexicon(), keywords, tokens);
+            t = metrics.record(PipelineStage.EXTRACT, t, trace);
+            if (!symptoms.isEmpty()) {
+                String primarySymptom = symptoms.get(0);
+                stateStore.put(userId, ConversationState.awaitingDetails(primarySymptom, 1));
+                metrics.transition(StateTransition.STARTED, trace);
+                ReplyContext context = engine.getReplyContext();
+                context.symptom = primarySymptom;
+                context.symptoms = symptoms;
+                emit(engine, kb.message(KnowledgeCatalog.Message.SYMPTOM_ACK), sink);
+                if (symptoms.size() > 1) {
+                    emit(engine, kb.message(KnowledgeCatalog.Message.MULTIPLE_SYMPTOMS), sink);
+                }
+                emit(engine, kb.message(KnowledgeCatalog.Message.ASK_DETAILS), sink);
+            } else {
+                emit(engine, kb.message(KnowledgeCatalog.Message.SYMPTOM_UNSPECIFIED), sink);
+            }
+        } else {
+            emit(engine, kb.intentReply(category), sink);
+        }
+        metrics.record(PipelineStage.RENDER, t, trace);
     }
 
-    // Extract symptoms using NER or fallback to keywords
-    private List<String> extractSymptoms(String input, String[] tokens) {
+    // Extract symptoms using NER (if the cascade enables it) or fallback to keywords
+    List<String> extractSymptoms(NLPEngine engine, Lexicon lexicon, Lexicon.Match keywords, String[] tokens) {
         List<String> symptoms = new ArrayList<>();
-        if (nameFinder != null) {
+        if (cascade.isNerEnabled() && engine.hasNameFinder()) {
             try {
-                Span[] spans = nameFinder.find(tokens);
+                Span[] spans = engine.findNames(tokens);
                 for (Span span : spans) {
                     String entity = String.join(" ", Arrays.copyOfRange(tokens, span.getStart(), span.getEnd()));
-                    if (isSymptom(entity)) symptoms.add(entity);
+                    if (lexicon.isSymptom(entity)) symptoms.add(entity);
                 }
-                nameFinder.clearAdaptiveData();
             } catch (Exception e) {
-                System.err.println("NER extraction failed: " + e.getMessage());
+                log.warn("NER extraction failed: {}", e.getMessage());
             }
         }
         if (symptoms.isEmpty()) {
-            symptoms = detectSymptomsKeywords(input);
-        }
-        return symptoms;
-    }
-
-    // Keyword-based symptom detection
-    private List<String> detectSymptomsKeywords(String input) {
-        List<String> symptoms = new ArrayList<>();
-        Map<String, String> symptomMap = Map.ofEntries(
-            Map.entry("fever", "fever"),
-            Map.entry("headache", "headache"),
-            Map.entry("cough", "cough"),
-            Map.entry("stomach", "nausea"),
-            Map.entry("nauseous", "nausea"),
-            Map.entry("dizzy", "dizziness"),
-            Map.entry("sore throat", "sore throat"),
-            Map.entry("back pain", "back pain"),
-            Map.entry("shortness of breath", "shortness of breath"),
-            Map.entry("chest pain", "chest pain"),
-            Map.entry("fatigue", "fatigue"),
-            Map.entry("body aches", "body aches"),
-            Map.entry("runny nose", "runny nose"),
-            Map.entry("joint pain", "joint pain")
-        );
-        for (Map.Entry<String, String> entry : symptomMap.entrySet()) {
-            if (input.contains(entry.getKey())) symptoms.add(entry.getValue());
+            symptoms = keywords.getSymptoms();
         }
         return symptoms;
     }
 
-    // Check if entity is a symptom
-    private boolean isSymptom(String entity) {
-        return detectSymptomsKeywords(entity.toLowerCase()).contains(entity.toLowerCase());
-    }
-
-    // Basic classification fallback
-    private String classifyBasic(String[] tokens) {
-        String input = String.join(" ", tokens).toLowerCase();
-        if (input.contains("hello") || input.contains("hi") || input.contains("hey") || input.contains("good morning")) return "greeting";
-        if (input.contains("thank") || input.contains("appreciate")) return "thanks";
-        if (input.contains("bye") || input.contains("goodbye")) return "goodbye";
-        if (input.contains("fever") || input.contains("headache") || input.contains("cough") || input.contains("pain")) return "symptom";
-        if (input.contains("medicine") || input.contains("ibuprofen")) return "medication";
-        if (input.contains("doctor") || input.contains("advice")) return "advice";
-        if (input.contains("appointment") || input.contains("book")) return "appointment";
-        if (input.contains("insurance") || input.contains("billing")) return "insurance";
-        if (input.contains("hours") || input.contains("location") || input.contains("contact")) return "info";
-        return "unknown";
-    }
-
-    // Enhanced parsing for duration, severity, escalation (includes "morning", "today", "yesterday")
-    private ParsedDetails parseSymptomDetails(String input) {
-        int days = -1;
-        String severity = "mild";
-        boolean escalating = false;
-
-        // Duration patterns: numbers, "a week", "since yesterday", "yesterday" (1), "today" (0), "morning" (0)
-        Pattern dayPattern = Pattern.compile("(\\d+|a week|since yesterday|yesterday|today|morning)");
-        Matcher dayMatcher = dayPattern.matcher(input);
-        if (dayMatcher.find()) {
-            String match = dayMatcher.group(1);
-            switch (match) {
-                case "a week": days = 7; break;
-                case "since yesterday": days = 1; break;
-                case "yesterday": days = 1; break;
-                case "today": days = 0; break;
-                case "morning": days = 0; break;
-                default: days = Integer.parseInt(match); break;
-            }
-        }
-
-        if (input.contains("severe") || input.contains("bad") || input.contains("terrible") || input.contains("intense")) {
-            severity = "severe";
-        } else if (input.contains("mild") || input.contains("slight")) {
-            severity = "mild";
-        }
-
-        if (input.contains("getting worse") || input.contains("worsening") || input.contains("increasing")) {
-            escalating = true;
-        }
-
-        return new ParsedDetails(days, severity, escalating);
-    }
-
-    // Get advice and medicine based on symptom and details
-    private String getSymptomAdvice(String symptom, ParsedDetails details) {
-        String symptomDisplay = symptom.replace("_", " ");
-        String baseAdvice = "";
-        String medicine = "";
-        if ("severe".equals(details.severity) || details.days >= 3 || details.escalating) {
-            baseAdvice = "Since it's " + details.severity + " and has lasted " + details.days + " days" + (details.escalating ? " and is getting worse" : "") + ", please see a doctor immediately for evaluation. ";
+    // Severity/duration preamble, then the symptom's care and medicine advice
+    private void getSymptomAdvice(KnowledgeCatalog kb, NLPEngine engine, ParsedDetails details,
+                                  Consumer<CharSequence> sink) {
+        ReplyContext context = engine.getReplyContext();
+        boolean severe = "severe".equals(details.severity);
+        context.severity = kb.message(severe ? KnowledgeCatalog.Message.SEVERE : KnowledgeCatalog.Message.MILD).toString();
+        context.days = details.days;
+        context.escalating = details.escalating ? kb.message(KnowledgeCatalog.Message.ESCALATING).toString() : "";
+        if (severe || details.days >= kb.getUrgentAfterDays() || details.escalating) {
+            emit(engine, kb.message(KnowledgeCatalog.Message.ADVICE_URGENT), sink);
         } else {
-            baseAdvice = "For a " + details.severity + " " + symptomDisplay + " lasting " + details.days + " days, ";
-        }
-
-        switch (symptom) {
-            case "fever":
-                medicine = "consider acetaminophen or ibuprofen if appropriate.";
-                return baseAdvice + "rest, hydrate, and " + medicine + " Monitor your temperature.";
-            case "headache":
-                medicine = "consider over-the-counter pain relievers like ibuprofen if needed.";
-                return baseAdvice + "try rest, hydration, and " + medicine;
-            case "cough":
-                medicine = "consider cough syrup or lozenges if needed.";
-                return baseAdvice + "stay hydrated, use honey for soothing, avoid irritants, and " + medicine;
-            case "nausea":
-                medicine = "consider anti-nausea meds like dimenhydrinate if needed.";
-                return baseAdvice + "avoid heavy foods, drink ginger tea, and rest. " + medicine;
-            case "dizziness":
-                medicine = "consider antihistamines if allergies are suspected.";
-                return baseAdvice + "sit down, hydrate, avoid sudden movements, and " + medicine;
-            case "sore throat":
-                medicine = "consider lozenges or throat sprays.";
-                return baseAdvice + "gargle with salt water, stay hydrated, and " + medicine;
-            case "back pain":
-                medicine = "consider anti-inflammatory meds like ibuprofen.";
-                return baseAdvice + "apply ice/heat, rest, gentle stretches, and " + medicine;
-            case "shortness of breath":
-                medicine = "use prescribed inhalers if applicable.";
-                return baseAdvice + "sit upright, use a fan, and seek immediate medical help if severe. " + medicine;
-            case "chest pain":
-                medicine = "chew aspirin if no allergies.";
-                return baseAdvice + "stop activity, " + medicine + ", and call emergency services.";
-            case "fatigue":
-                medicine = "consider energy supplements or consult for underlying causes.";
-                return baseAdvice + "get plenty of rest, eat balanced meals, and " + medicine;
-            case "body aches":
-                medicine = "consider anti-inflammatory meds like ibuprofen.";
-                return baseAdvice + "rest, apply heat, and " + medicine;
-            case "runny nose":
-                medicine = "consider antihistamines or decongestants.";
-                return baseAdvice + "use saline sprays, stay hydrated, and " + medicine;
-            case "joint pain":
-                medicine = "consider anti-inflammatory meds like ibuprofen.";
-                return baseAdvice + "apply ice/heat, rest the joint, and " + medicine;
-            default:
-                return baseAdvice + "rest and monitor your symptoms.";
+            emit(engine, kb.message(KnowledgeCatalog.Message.ADVICE_ROUTINE), sink);
         }
+        emit(engine, kb.symptomCare(context.symptom), sink);
     }
 
-    private static class ParsedDetails {
-        int days;
-        String severity;
-        boolean escalating;
-
-        ParsedDetails(int days, String severity, boolean escalating) {
-            this.days = days;
-            this.severity = severity;
-            this.escalating = escalating;
-        }
+    // Literal templates go to the sink as they are; the rest render into the engine's buffer
+    private static void emit(NLPEngine engine, Template template, Consumer<CharSequence> sink) {
+        sink.accept(template.isLiteral() ? template.toString() : engine.render(template));
     }
 }
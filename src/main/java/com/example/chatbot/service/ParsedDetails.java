@@ -0,0 +1,17 @@
+package com.example.chatbot.service;
+
+/**
+ * Symptom details parsed from a follow-up message. {@code days} is -1 when no
+ * duration was found.
+ */
+public class ParsedDetails {
+    final int days;
+    final String severity;
+    final boolean escalating;
+
+    ParsedDetails(int days, String severity, boolean escalating) {
+        this.days = days;
+        this.severity = severity;
+        this.escalating = escalating;
+    }
+}
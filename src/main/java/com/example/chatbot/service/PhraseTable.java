@@ -0,0 +1,53 @@
+package com.example.chatbot.service;
+
+import opennlp.tools.doccat.DocumentSample;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Training phrases by their {@link ClassificationCache#normalize normalized} form, for
+ * the phrase tier of the {@link ClassificationCascade}. Built from the same samples
+ * as the doccat model of its {@link ModelBundle}, so it changes with every retrain.
+ * A phrase labeled with more than one category is left out: the model decides those.
+ */
+public final class PhraseTable {
+
+    static final PhraseTable EMPTY = new PhraseTable(Map.of());
+
+    private final Map<String, String> categories;
+
+    private PhraseTable(Map<String, String> categories) {
+        this.categories = categories;
+    }
+
+    public static PhraseTable of(List<DocumentSample> samples) {
+        if (samples == null || samples.isEmpty()) {
+            return EMPTY;
+        }
+        Map<String, String> categories = new HashMap<>();
+        Set<String> ambiguous = new HashSet<>();
+        for (DocumentSample sample : samples) {
+            String phrase = ClassificationCache.normalize(String.join(" ", sample.getText()));
+            String previous = categories.putIfAbsent(phrase, sample.getCategory());
+            if (previous != null && !previous.equals(sample.getCategory())) {
+                ambiguous.add(phrase);
+            }
+        }
+        categories.keySet().removeAll(ambiguous);
+        categories.remove("");
+        return new PhraseTable(Map.copyOf(categories));
+    }
+
+    /** Category of a normalized message, or null if it is not a training phrase. */
+    public String lookup(String normalizedInput) {
+        return categories.get(normalizedInput);
+    }
+
+    public int size() {
+        return categories.size();
+    }
+}
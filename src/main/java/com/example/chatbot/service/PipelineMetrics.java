@@ -0,0 +1,176 @@
+package com.example.chatbot.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for the chat pipeline. All meters are registered up front (or
+ * once per new category) so the request path only reads the clock and bumps
+ * existing meters: no Timer.Sample, tag arrays or lambdas are allocated per turn.
+ */
+@Component
+public class PipelineMetrics {
+
+    private final MeterRegistry registry;
+    private final Timer[] stageTimers = new Timer[PipelineStage.values().length];
+    private final Counter[] transitionCounters = new Counter[StateTransition.values().length];
+    private final Counter[] tierCounters = new Counter[CascadeTier.values().length];
+    private final ConcurrentMap<String, Counter> categoryCounters = new ConcurrentHashMap<>();
+    private final Timer turnTimer;
+    private final Counter lowConfidence;
+    private volatile long modelLoadMillis;
+
+    public PipelineMetrics(MeterRegistry registry, ConversationStateStore stateStore,
+                           ClassificationCache classificationCache, ModelRegistry modelRegistry,
+                           ConversationEventLog eventLog, AdmissionLimiter admission) {
+        this.registry = registry;
+        for (PipelineStage stage : PipelineStage.values()) {
+            stageTimers[stage.ordinal()] = Timer.builder("nlp.stage.latency")
+                    .description("Time spent in one stage of a chat turn")
+                    .tag("stage", stage.tag())
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+        for (StateTransition transition : StateTransition.values()) {
+            transitionCounters[transition.ordinal()] = Counter.builder("nlp.state.transitions")
+                    .description("Symptom-flow state changes")
+                    .tag("transition", transition.tag())
+                    .register(registry);
+        }
+        for (CascadeTier tier : CascadeTier.values()) {
+            tierCounters[tier.ordinal()] = Counter.builder("nlp.cascade.hits")
+                    .description("Turns classified by each tier of the classification cascade")
+                    .tag("tier", tier.tag())
+                    .register(registry);
+        }
+        turnTimer = Timer.builder("nlp.turn.latency")
+                .description("End-to-end time of a chat turn")
+                .publishPercentileHistogram()
+                .register(registry);
+        lowConfidence = Counter.builder("nlp.classifications.rejected")
+                .description("Turns rejected because the categorizer confidence was too low")
+                .register(registry);
+
+        TimeGauge.builder("nlp.startup.model.load", this, TimeUnit.MILLISECONDS, m -> m.modelLoadMillis)
+                .description("Time NLPService took to load its models and build the engine pool")
+                .register(registry);
+
+        Gauge.builder("nlp.model.version", modelRegistry, r -> r.current() != null ? r.current().getVersion() : 0)
+                .description("Version of the live model bundle")
+                .register(registry);
+
+        FunctionCounter.builder("nlp.classifier.mismatches", modelRegistry, ModelRegistry::getClassifierMismatchCount)
+                .description("Classifications where the compiled classifier disagreed with OpenNLP (verify mode)")
+                .register(registry);
+
+        Gauge.builder("nlp.sessions.active", stateStore, ConversationStateStore::size)
+                .description("Conversations currently held in the state store")
+                .register(registry);
+        FunctionCounter.builder("nlp.sessions.evicted", stateStore, ConversationStateStore::getEvictionCount)
+                .tag("cause", "size")
+                .register(registry);
+        FunctionCounter.builder("nlp.sessions.evicted", stateStore, ConversationStateStore::getExpirationCount)
+                .tag("cause", "expired")
+                .register(registry);
+
+        FunctionCounter.builder("nlp.classification.cache", classificationCache, c -> c.stats().hitCount())
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("nlp.classification.cache", classificationCache, c -> c.stats().missCount())
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("nlp.classification.cache.evictions", classificationCache, c -> c.stats().evictionCount())
+                .register(registry);
+        Gauge.builder("nlp.classification.cache.size", classificationCache, ClassificationCache::size)
+                .register(registry);
+
+        FunctionCounter.builder("nlp.classification.coalesced", classificationCache, ClassificationCache::getCoalescedCount)
+                .description("Turns that waited for an identical concurrent turn's classification")
+                .register(registry);
+
+        Gauge.builder("chat.admission.limit", admission, AdmissionLimiter::getLimit)
+                .description("Current adaptive limit on concurrent chat turns")
+                .register(registry);
+        Gauge.builder("chat.admission.in-flight", admission, AdmissionLimiter::getInFlight)
+                .register(registry);
+        Gauge.builder("chat.admission.queued", admission, AdmissionLimiter::getQueued)
+                .register(registry);
+        FunctionCounter.builder("chat.admission.admitted", admission, AdmissionLimiter::getAdmittedCount)
+                .register(registry);
+        for (AdmissionLimiter.ShedReason reason : AdmissionLimiter.ShedReason.values()) {
+            FunctionCounter.builder("chat.admission.shed", admission, a -> a.getShedCount(reason))
+                    .description("Chat turns turned away with 503 by admission control")
+                    .tag("reason", reason.tag())
+                    .register(registry);
+        }
+
+        FunctionCounter.builder("nlp.events", eventLog, ConversationEventLog::getWrittenCount)
+                .description("Conversation events written to the event log")
+                .tag("result", "written")
+                .register(registry);
+        FunctionCounter.builder("nlp.events", eventLog, ConversationEventLog::getDroppedCount)
+                .description("Conversation events dropped because the event log backlog was full")
+                .tag("result", "dropped")
+                .register(registry);
+    }
+
+    /**
+     * Adds the time from {@code startNanos} until now to the stage in the turn's trace;
+     * returns now. A stage that runs twice in one turn adds up, and its timer gets the
+     * sum once, from {@link #recordTurn}.
+     */
+    long record(PipelineStage stage, long startNanos, TurnTrace trace) {
+        long now = System.nanoTime();
+        trace.stageNanos[stage.ordinal()] += now - startNanos;
+        trace.stagesRun |= 1 << stage.ordinal();
+        return now;
+    }
+
+    void recordTurn(long startNanos, TurnTrace trace) {
+        trace.totalNanos = System.nanoTime() - startNanos;
+        turnTimer.record(trace.totalNanos, TimeUnit.NANOSECONDS);
+        for (int i = 0; i < stageTimers.length; i++) {
+            if ((trace.stagesRun & (1 << i)) != 0) {
+                stageTimers[i].record(trace.stageNanos[i], TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    public void category(String category) {
+        Counter counter = categoryCounters.get(category);
+        if (counter == null) {
+            counter = categoryCounters.computeIfAbsent(category, c -> Counter.builder("nlp.classifications")
+                    .description("Turns classified per intent category")
+                    .tag("category", c)
+                    .register(registry));
+        }
+        counter.increment();
+    }
+
+    public void modelLoadTime(long millis) {
+        modelLoadMillis = millis;
+    }
+
+    public void lowConfidence() {
+        lowConfidence.increment();
+    }
+
+    void tier(CascadeTier tier, TurnTrace trace) {
+        tierCounters[tier.ordinal()].increment();
+        trace.tier = tier;
+    }
+
+    void transition(StateTransition transition, TurnTrace trace) {
+        transitionCounters[transition.ordinal()].increment();
+        trace.transition = transition;
+    }
+}
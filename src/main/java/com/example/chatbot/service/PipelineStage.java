@@ -0,0 +1,21 @@
+package com.example.chatbot.service;
+
+/** Stages of a chat turn in {@link NLPService}, each with its own latency timer. */
+public enum PipelineStage {
+    NORMALIZE("normalize"),
+    TOKENIZE("tokenize"),
+    STATE_LOOKUP("state_lookup"),
+    CATEGORIZE("categorize"),
+    EXTRACT("extract"),
+    RENDER("render");
+
+    private final String tag;
+
+    PipelineStage(String tag) {
+        this.tag = tag;
+    }
+
+    public String tag() {
+        return tag;
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.chatbot.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.protocol.ProtocolVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link ConversationStateStore} shared by every instance through a Redis server
+ * ({@code session.store.backend=remote}), so a user can continue a symptom flow on
+ * any instance and across restarts. Writes update a local near-cache and are sent
+ * asynchronously over one Lettuce connection (never waited for); reads go to the
+ * server, waiting at most {@code read-timeout-ms}. A read that times out, or finds
+ * the server down, is treated as "no state".
+ * <p>
+ * Nothing invalidates another instance's near-cache, so it is off by default
+ * ({@code near-cache-ttl-ms=0}) and every read asks the server. Turn it on only
+ * when a load balancer routes each session to one instance; the TTL then bounds how
+ * stale a state can be after a session moves. Only states are near-cached, never
+ * their absence, so a flow started elsewhere is seen on the next read.
+ * <p>
+ * If the server is unreachable at startup the store still starts, treating every
+ * session as new, and connects in the background; once connected, Lettuce
+ * reconnects by itself and rejects commands while disconnected instead of
+ * buffering them.
+ */
+public class RemoteConversationStateStore implements ConversationStateStore, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(RemoteConversationStateStore.class);
+    private static final long CONNECT_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final RedisClient client;
+    private final RedisURI uri;
+    private final String keyPrefix;
+    private final long ttlMillis;
+    private final long readTimeoutMs;
+    // null when near-cache-ttl-ms is 0
+    private final Cache<String, ConversationState> nearCache;
+
+    private volatile StatefulRedisConnection<String, String> connection;
+    private final AtomicBoolean connecting = new AtomicBoolean();
+    private volatile long nextConnectNanos;
+    private volatile boolean closed;
+
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder failedReads = new LongAdder();
+    private final LongAdder droppedWrites = new LongAdder();
+
+    RemoteConversationStateStore(RedisClient client, RedisURI uri, String keyPrefix, int nearCacheSize,
+                                 long nearCacheTtlMs, long ttlMillis, long readTimeoutMs) {
+        this.client = client;
+        this.uri = uri;
+        this.keyPrefix = keyPrefix;
+        this.ttlMillis = ttlMillis;
+        this.readTimeoutMs = readTimeoutMs;
+        this.nearCache = nearCacheTtlMs <= 0 ? null : Caffeine.newBuilder()
+                .maximumSize(nearCacheSize)
+                .expireAfterWrite(Duration.ofMillis(Math.min(nearCacheTtlMs, ttlMillis)))
+                .removalListener((String key, ConversationState state, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE) evictions.increment();
+                    else if (cause == RemovalCause.EXPIRED) expirations.increment();
+                })
+                .build();
+        try {
+            connection = client.connect(StringCodec.UTF8, uri);
+        } catch (RedisException e) {
+            log.warn("Session server {}:{} unreachable ({}); sessions start fresh until it is back.",
+                    uri.getHost(), uri.getPort(), e.getMessage());
+            nextConnectNanos = System.nanoTime() + CONNECT_BACKOFF_NANOS;
+        }
+    }
+
+    /**
+     * Client options for the session connection: RESP2, at most {@code maxPending}
+     * queued commands, and commands rejected rather than buffered while disconnected.
+     */
+    static ClientOptions clientOptions(int maxPending, long connectTimeoutMs) {
+        return ClientOptions.builder()
+                .protocolVersion(ProtocolVersion.RESP2)
+                .requestQueueSize(maxPending)
+                .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                .socketOptions(SocketOptions.builder().connectTimeout(Duration.ofMillis(connectTimeoutMs)).build())
+                .build();
+    }
+
+    @Override
+    public ConversationState get(String userId) {
+        ConversationState state = nearCache != null ? nearCache.getIfPresent(userId) : null;
+        if (state == null) {
+            state = readThrough(userId);
+        }
+        if (state != null && System.currentTimeMillis() - state.lastTouched() > ttlMillis) {
+            invalidate(userId);
+            return null;
+        }
+        return state;
+    }
+
+    /** The near-cached state only; null when the near-cache is off. */
+    @Override
+    public ConversationState peek(String userId) {
+        ConversationState state = nearCache != null ? nearCache.getIfPresent(userId) : null;
+        return state != null && System.currentTimeMillis() - state.lastTouched() <= ttlMillis ? state : null;
+    }
+
+    @Override
+    public void put(String userId, ConversationState state) {
+        if (nearCache != null) {
+            nearCache.put(userId, state);
+        }
+        RedisAsyncCommands<String, String> commands = commands();
+        if (commands == null) {
+            droppedWrites.increment();
+            return;
+        }
+        commands.set(keyPrefix + userId, encode(state), SetArgs.Builder.px(ttlMillis)).whenComplete(this::written);
+    }
+
+    @Override
+    public void remove(String userId) {
+        // The DEL and any later GET share the connection, so a read after this sees the removal
+        invalidate(userId);
+        RedisAsyncCommands<String, String> commands = commands();
+        if (commands == null) {
+            droppedWrites.increment();
+            return;
+        }
+        commands.del(keyPrefix + userId).whenComplete(this::written);
+    }
+
+    /** States in this instance's near-cache (0 when it is off); the server may hold more. */
+    @Override
+    public int size() {
+        return nearCache != null ? (int) nearCache.estimatedSize() : 0;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    /** Near-cache misses that got no answer from the server in time. */
+    public long getFailedReadCount() {
+        return failedReads.sum();
+    }
+
+    /** Writes the server never applied: not connected, command queue full, or the command failed. */
+    public long getDroppedWriteCount() {
+        return droppedWrites.sum();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        StatefulRedisConnection<String, String> current = connection;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private void invalidate(String userId) {
+        if (nearCache != null) {
+            nearCache.invalidate(userId);
+        }
+    }
+
+    private void written(Object reply, Throwable failure) {
+        if (failure != null) {
+            droppedWrites.increment();
+        }
+    }
+
+    // The connection's commands, or null while there is none; starts a background connect at most every backoff
+    private RedisAsyncCommands<String, String> commands() {
+        StatefulRedisConnection<String, String> current = connection;
+        if (current != null) {
+            return current.async();
+        }
+        if (!closed && System.nanoTime() - nextConnectNanos >= 0 && connecting.compareAndSet(false, true)) {
+            client.connectAsync(StringCodec.UTF8, uri).whenComplete((connected, failure) -> {
+                if (failure != null) {
+                    log.debug("Session server connect failed: {}", failure.toString());
+                    nextConnectNanos = System.nanoTime() + CONNECT_BACKOFF_NANOS;
+                } else if (closed) {
+                    connected.closeAsync();
+                } else {
+                    log.info("Connected to session server {}:{}.", uri.getHost(), uri.getPort());
+                    connection = connected;
+                }
+                connecting.set(false);
+            });
+        }
+        return null;
+    }
+
+    private ConversationState readThrough(String userId) {
+        RedisAsyncCommands<String, String> commands = commands();
+        if (commands == null) {
+            failedReads.increment();
+            return null;
+        }
+        try {
+            String value = commands.get(keyPrefix + userId).get(readTimeoutMs, TimeUnit.MILLISECONDS);
+            ConversationState state = decode(value);
+            if (state != null && nearCache != null) {
+                nearCache.put(userId, state);
+            }
+            return state;
+        } catch (TimeoutException | ExecutionException e) {
+            failedReads.increment();
+            log.debug("Session read for {} failed: {}", userId, e.toString());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    // "retry|lastTouched|symptom"; the symptom goes last since it is free text
+    static String encode(ConversationState state) {
+        return state.retry() + "|" + state.lastTouched() + "|" + state.symptom();
+    }
+
+    static ConversationState decode(String value) {
+        if (value == null) {
+            return null;
+        }
+        int first = value.indexOf('|');
+        int second = value.indexOf('|', first + 1);
+        if (first < 0 || second < 0) {
+            return null;
+        }
+        try {
+            return new ConversationState(value.substring(second + 1), Integer.parseInt(value.substring(0, first)),
+                    Long.parseLong(value.substring(first + 1, second)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.chatbot.service;
+
+import java.util.List;
+
+/**
+ * Per-turn values for {@link Template} placeholders. Owned by an {@link NLPEngine}
+ * and reused across turns, like the engine's reply buffer.
+ */
+public final class ReplyContext {
+
+    String symptom = "";
+    List<String> symptoms = List.of();
+    String severity = "";
+    int days;
+    String escalating = "";
+
+    void clear() {
+        symptom = "";
+        symptoms = List.of();
+        severity = "";
+        days = 0;
+        escalating = "";
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.chatbot.service;
+
+/** Changes to a user's symptom-flow state, counted by {@link PipelineMetrics}. */
+public enum StateTransition {
+    /** A symptom was detected and we asked for details. */
+    STARTED("started"),
+    /** The follow-up had no duration, so we asked again. */
+    RETRIED("retried"),
+    /** Details were parsed and advice given. */
+    RESOLVED("resolved"),
+    /** We gave up after too many unparseable follow-ups. */
+    ABANDONED("abandoned");
+
+    private final String tag;
+
+    StateTransition(String tag) {
+        this.tag = tag;
+    }
+
+    public String tag() {
+        return tag;
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.chatbot.service;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * In-memory {@link ConversationStateStore} split into independently locked stripes.
+ * Each stripe keeps its entries in write order, so the eldest entry is always at
+ * the head: expiry and size eviction only ever look at the front of the map.
+ * The default backend ({@code session.store.backend=memory}), and the hot tier of
+ * the durable backends, which follow it through a {@link ChangeListener}.
+ */
+public class StripedConversationStateStore implements ConversationStateStore {
+
+    /**
+     * Told of every write, removal and size eviction while the entry's stripe is
+     * still locked, so it sees the changes to any one key in the order they were
+     * made. Expiry is not reported: an expired state is dead by its timestamp alone.
+     * Must be quick and must not call back into the store.
+     */
+    public interface ChangeListener {
+        void written(String userId, ConversationState state);
+
+        /** The entry was removed, or evicted because its stripe was full. */
+        void removed(String userId);
+    }
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final int maxPerStripe;
+    private final long ttlMillis;
+
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private volatile ChangeListener listener;
+
+    public StripedConversationStateStore(int maxSize, long ttlMinutes, int stripeCount) {
+        if (maxSize < 1 || ttlMinutes < 1 || stripeCount < 1) {
+            throw new IllegalArgumentException("session.store settings must be positive");
+        }
+        // Round up to a power of two so the stripe can be picked with a mask
+        int n = Integer.highestOneBit(stripeCount - 1) << 1;
+        n = Math.max(1, Math.min(n, maxSize));
+        this.stripes = new Stripe[n];
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.mask = n - 1;
+        this.maxPerStripe = (maxSize + n - 1) / n;
+        this.ttlMillis = ttlMinutes * 60_000L;
+    }
+
+    @Override
+    public ConversationState get(String userId) {
+        Stripe stripe = stripeFor(userId);
+        long now = System.currentTimeMillis();
+        synchronized (stripe) {
+            ConversationState state = stripe.map.get(userId);
+            if (state != null && isExpired(state, now)) {
+                stripe.map.remove(userId);
+                expirations.increment();
+                return null;
+            }
+            return state;
+        }
+    }
+
+    @Override
+    public void put(String userId, ConversationState state) {
+        Stripe stripe = stripeFor(userId);
+        long now = System.currentTimeMillis();
+        synchronized (stripe) {
+            // Remove first so the entry moves to the tail (most recently written)
+            stripe.map.remove(userId);
+            stripe.map.put(userId, state);
+            ChangeListener l = listener;
+            if (l != null) l.written(userId, state);
+            purgeExpired(stripe, now);
+            Iterator<String> it = stripe.map.keySet().iterator();
+            while (stripe.map.size() > maxPerStripe && it.hasNext()) {
+                String evicted = it.next();
+                it.remove();
+                evictions.increment();
+                if (l != null) l.removed(evicted);
+            }
+        }
+    }
+
+    @Override
+    public void remove(String userId) {
+        Stripe stripe = stripeFor(userId);
+        synchronized (stripe) {
+            stripe.map.remove(userId);
+            ChangeListener l = listener;
+            if (l != null) l.removed(userId);
+        }
+    }
+
+    public void setChangeListener(ChangeListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.map.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Visits every live entry, one stripe at a time; each stripe is consistent but
+     * writes to other stripes may land while the visit is in progress.
+     */
+    public void forEach(BiConsumer<String, ConversationState> visitor) {
+        long now = System.currentTimeMillis();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (Map.Entry<String, ConversationState> entry : stripe.map.entrySet()) {
+                    if (!isExpired(entry.getValue(), now)) visitor.accept(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    // Stripes that stop receiving writes would otherwise hold expired users forever
+    @Scheduled(fixedDelayString = "${session.store.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                purgeExpired(stripe, now);
+            }
+        }
+    }
+
+    private void purgeExpired(Stripe stripe, long now) {
+        Iterator<ConversationState> it = stripe.map.values().iterator();
+        while (it.hasNext() && isExpired(it.next(), now)) {
+            it.remove();
+            expirations.increment();
+        }
+    }
+
+    private boolean isExpired(ConversationState state, long now) {
+        return now - state.lastTouched() > ttlMillis;
+    }
+
+    private Stripe stripeFor(String userId) {
+        int h = userId.hashCode();
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+
+    private static final class Stripe {
+        final Map<String, ConversationState> map = new LinkedHashMap<>();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.chatbot.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A reply template split once, when the knowledge base is compiled, into literal
+ * runs and placeholders. Rendering is a straight copy of those parts into the
+ * caller's buffer; nothing is parsed or concatenated per turn.
+ */
+public final class Template {
+
+    /** Values filled in per turn from a {@link ReplyContext}, written {@code {name}}. */
+    public enum Placeholder {
+        SYMPTOM, SYMPTOMS, SEVERITY, DAYS, ESCALATING;
+
+        private final String key = name().toLowerCase();
+    }
+
+    // literals.length == placeholders.length + 1; literals surround the placeholders
+    private final String[] literals;
+    private final Placeholder[] placeholders;
+
+    private Template(String[] literals, Placeholder[] placeholders) {
+        this.literals = literals;
+        this.placeholders = placeholders;
+    }
+
+    /**
+     * Splits {@code text} at its {@code {name}} placeholders. Names found in
+     * {@code constants} are substituted right away; any other name must be a
+     * {@link Placeholder}. A brace that does not open a name is kept as text.
+     */
+    public static Template compile(String text, Map<String, String> constants) {
+        List<String> literals = new ArrayList<>();
+        List<Placeholder> placeholders = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < text.length()) {
+            int close = text.charAt(i) == '{' ? text.indexOf('}', i) : -1;
+            String name = close > i + 1 ? text.substring(i + 1, close) : null;
+            if (name == null || !isName(name)) {
+                literal.append(text.charAt(i++));
+                continue;
+            }
+            String constant = constants.get(name);
+            if (constant != null) {
+                literal.append(constant);
+            } else {
+                literals.add(literal.toString());
+                literal.setLength(0);
+                placeholders.add(placeholder(name, text));
+            }
+            i = close + 1;
+        }
+        literals.add(literal.toString());
+        return new Template(literals.toArray(new String[0]), placeholders.toArray(new Placeholder[0]));
+    }
+
+    public boolean isLiteral() {
+        return placeholders.length == 0;
+    }
+
+    public void renderTo(StringBuilder out, ReplyContext context) {
+        out.append(literals[0]);
+        for (int i = 0; i < placeholders.length; i++) {
+            switch (placeholders[i]) {
+                case SYMPTOM:
+                    out.append(context.symptom);
+                    break;
+                case SYMPTOMS:
+                    for (int s = 0; s < context.symptoms.size(); s++) {
+                        if (s > 0) out.append(", ");
+                        out.append(context.symptoms.get(s));
+                    }
+                    break;
+                case SEVERITY:
+                    out.append(context.severity);
+                    break;
+                case DAYS:
+                    out.append(context.days);
+                    break;
+                case ESCALATING:
+                    out.append(context.escalating);
+                    break;
+            }
+            out.append(literals[i + 1]);
+        }
+    }
+
+    /** The text of a template without placeholders; with placeholders, the source form. */
+    @Override
+    public String toString() {
+        if (isLiteral()) {
+            return literals[0];
+        }
+        StringBuilder text = new StringBuilder(literals[0]);
+        for (int i = 0; i < placeholders.length; i++) {
+            text.append('{').append(placeholders[i].key).append('}').append(literals[i + 1]);
+        }
+        return text.toString();
+    }
+
+    private static boolean isName(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!(c >= 'a' && c <= 'z') && !(c >= 'A' && c <= 'Z')) return false;
+        }
+        return true;
+    }
+
+    private static Placeholder placeholder(String name, String text) {
+        for (Placeholder placeholder : Placeholder.values()) {
+            if (placeholder.key.equals(name)) return placeholder;
+        }
+        throw new IllegalArgumentException("Unknown placeholder {" + name + "} in \"" + text + "\"");
+    }
+}
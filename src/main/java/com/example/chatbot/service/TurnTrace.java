@@ -0,0 +1,64 @@
+package com.example.chatbot.service;
+
+import java.util.Arrays;
+
+/**
+ * What happened in one chat turn, filled in as the pipeline runs and handed to the
+ * {@link ConversationEventLog}. Instances are reused: each {@link NLPEngine} owns
+ * one for the turn it is serving, and the event log's ring buffer preallocates its
+ * slots as traces and copies into them, so recording a turn allocates nothing.
+ */
+final class TurnTrace {
+
+    // Position in the event log, assigned when the trace is published
+    long sequence;
+    long timestamp;
+    String session;
+    String message;
+    String category;
+    double confidence;
+    // Cascade tier that classified the turn; null for a follow-up turn of a symptom flow
+    CascadeTier tier;
+    StateTransition transition;
+    // Follow-up attempts already made in the symptom flow this turn continued; 0 for a new turn
+    int flowStep;
+    boolean cacheHit;
+    long modelVersion;
+    final long[] stageNanos = new long[PipelineStage.values().length];
+    // Bit per PipelineStage ordinal that ran this turn, even if it took under a nanosecond tick
+    int stagesRun;
+    long totalNanos;
+
+    void clear() {
+        sequence = 0;
+        timestamp = 0;
+        session = null;
+        message = null;
+        category = null;
+        confidence = 0.0;
+        tier = null;
+        transition = null;
+        flowStep = 0;
+        cacheHit = false;
+        modelVersion = 0;
+        Arrays.fill(stageNanos, 0);
+        stagesRun = 0;
+        totalNanos = 0;
+    }
+
+    void copyFrom(TurnTrace other) {
+        timestamp = other.timestamp;
+        session = other.session;
+        message = other.message;
+        category = other.category;
+        confidence = other.confidence;
+        tier = other.tier;
+        transition = other.transition;
+        flowStep = other.flowStep;
+        cacheHit = other.cacheHit;
+        modelVersion = other.modelVersion;
+        System.arraycopy(other.stageNanos, 0, stageNanos, 0, stageNanos.length);
+        stagesRun = other.stagesRun;
+        totalNanos = other.totalNanos;
+    }
+}
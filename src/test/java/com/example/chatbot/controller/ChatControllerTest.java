@@ -0,0 +1,154 @@
+package com.example.chatbot.controller;
+
+import com.example.chatbot.ChatStreamConfig;
+import com.example.chatbot.service.AdmissionLimiter;
+import com.example.chatbot.service.BatchChatService;
+import com.example.chatbot.service.NLPService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// One stream worker and no queue, so a second concurrent stream is refused
+@WebMvcTest(value = ChatController.class, properties = {"chat.stream.threads=1", "chat.stream.queue-capacity=0"})
+@Import(ChatStreamConfig.class)
+class ChatControllerTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @MockBean
+    private NLPService nlpService;
+
+    @MockBean
+    private BatchChatService batchChatService;
+
+    @MockBean
+    private AdmissionLimiter admission;
+
+    @Test
+    void batchWithNullElementIsBadRequest() throws Exception {
+        when(batchChatService.getMaxBatchSize()).thenReturn(10);
+        when(admission.acquire(any())).thenReturn(true);
+        mvc.perform(post("/chat/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"sessionId\":\"a\",\"message\":\"hi\"}, null]"))
+                .andExpect(status().isBadRequest());
+        verify(batchChatService, never()).generateResponses(any());
+    }
+
+    @Test
+    void batchIsAdmittedAsOneUnitBeforeAnyTurnRuns() throws Exception {
+        when(batchChatService.getMaxBatchSize()).thenReturn(10);
+        when(admission.acquire(any())).thenReturn(false);
+        when(admission.getRetryAfterSeconds()).thenReturn(1);
+        String batch = "[{\"sessionId\":\"a\",\"message\":\"hi\"}, {\"sessionId\":\"b\",\"message\":\"hello\"}]";
+
+        mvc.perform(post("/chat/batch").contentType(MediaType.APPLICATION_JSON).content(batch))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+        verify(batchChatService, never()).generateResponses(any());
+
+        when(admission.acquire(any())).thenReturn(true);
+        when(batchChatService.generateResponses(any())).thenReturn(List.of("Hi!", "Hello!"));
+        mvc.perform(post("/chat/batch").contentType(MediaType.APPLICATION_JSON).content(batch))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].reply").value("Hello!"));
+        verify(admission, times(2)).acquire(any());
+        verify(admission).releaseUnmeasured();
+    }
+
+    @Test
+    void streamSendsEachPartThenDone() throws Exception {
+        when(admission.acquire(any())).thenReturn(true);
+        doAnswer(call -> {
+            Consumer<CharSequence> sink = call.getArgument(3);
+            sink.accept("Hello ");
+            sink.accept("there!");
+            return "Hello there!";
+        }).when(nlpService).generateResponse(eq("hi"), eq("a"), any(), any());
+
+        MvcResult result = mvc.perform(post("/chat/stream").contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .content("{\"sessionId\":\"a\",\"message\":\"hi\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        verify(admission, timeout(5000)).release(anyLong());
+
+        String events = result.getResponse().getContentAsString();
+        assertThat(events).containsSubsequence(
+                "event:part", "{\"reply\":\"Hello \"}", "event:part", "{\"reply\":\"there!\"}", "event:done");
+    }
+
+    @Test
+    void streamRefusedByTheBusyWorkerPoolIsOverloaded() throws Exception {
+        when(admission.acquire(any())).thenReturn(true);
+        when(admission.getRetryAfterSeconds()).thenReturn(1);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        doAnswer(call -> {
+            running.countDown();
+            finish.await(5, TimeUnit.SECONDS);
+            return "";
+        }).when(nlpService).generateResponse(eq("slow"), any(), any(), any());
+        String body = "{\"sessionId\":\"a\",\"message\":\"slow\"}";
+
+        mvc.perform(post("/chat/stream").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(request().asyncStarted());
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        try {
+            mvc.perform(post("/chat/stream").contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+            // The refused turn gave its admission slot back
+            verify(admission).release(anyLong());
+        } finally {
+            finish.countDown();
+        }
+        verify(admission, timeout(5000).times(2)).release(anyLong());
+    }
+
+    @Test
+    void localeComesFromTheRequestOrAcceptLanguage() throws Exception {
+        when(admission.acquire(any())).thenReturn(true);
+        when(nlpService.generateResponse("salut", "a", "fr-CA,fr;q=0.9")).thenReturn("Bonjour !");
+        when(nlpService.generateResponse("salut", "a", "de")).thenReturn("Hallo!");
+
+        mvc.perform(post("/chat").contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.ACCEPT_LANGUAGE, "fr-CA,fr;q=0.9")
+                        .content("{\"sessionId\":\"a\",\"message\":\"salut\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reply").value("Bonjour !"));
+        mvc.perform(post("/chat").contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.ACCEPT_LANGUAGE, "fr-CA,fr;q=0.9")
+                        .content("{\"sessionId\":\"a\",\"message\":\"salut\",\"locale\":\"de\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reply").value("Hallo!"));
+        verify(admission, times(2)).release(anyLong());
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.chatbot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionLimiterTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static AdmissionLimiter limiter(int initialLimit, int maxQueue, long maxWaitMs) {
+        return new AdmissionLimiter(true, initialLimit, 2, 256, maxQueue, maxWaitMs, 1.5, 0.2, 1);
+    }
+
+    // Keeps the limiter full and ends one turn of the given latency
+    private static void turn(AdmissionLimiter limiter, long latencyNanos) {
+        while (limiter.acquire(AdmissionLimiter.Priority.NEW)) {
+        }
+        limiter.release(System.nanoTime() - latencyNanos);
+    }
+
+    @Test
+    void sustainedOverloadShrinksTheLimitToMinLimit() {
+        AdmissionLimiter limiter = limiter(20, 0, 0);
+        for (int i = 0; i < 200; i++) {
+            turn(limiter, MILLI);
+        }
+        assertThat(limiter.getLimit()).isGreaterThanOrEqualTo(20);
+
+        for (int i = 0; i < 60; i++) {
+            turn(limiter, 20 * MILLI);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(2);
+
+        for (int i = 0; i < 200; i++) {
+            turn(limiter, MILLI);
+        }
+        assertThat(limiter.getLimit()).isGreaterThan(2);
+    }
+
+    @Test
+    void interruptedWaiterIsShedAndKeepsItsInterrupt() throws Exception {
+        AdmissionLimiter limiter = limiter(2, 10, 60_000);
+        assertThat(limiter.acquire(AdmissionLimiter.Priority.NEW)).isTrue();
+        assertThat(limiter.acquire(AdmissionLimiter.Priority.NEW)).isTrue();
+
+        AtomicReference<Boolean> admitted = new AtomicReference<>();
+        AtomicBoolean interruptKept = new AtomicBoolean();
+        Thread waiter = new Thread(() -> {
+            admitted.set(limiter.acquire(AdmissionLimiter.Priority.NEW));
+            interruptKept.set(Thread.currentThread().isInterrupted());
+        });
+        waiter.start();
+        while (limiter.getQueued() == 0) {
+            Thread.onSpinWait();
+        }
+        waiter.interrupt();
+        waiter.join(5_000);
+
+        assertThat(waiter.isAlive()).isFalse();
+        assertThat(admitted.get()).isFalse();
+        assertThat(interruptKept).isTrue();
+        assertThat(limiter.getQueued()).isZero();
+        assertThat(limiter.getShedCount(AdmissionLimiter.ShedReason.INTERRUPTED)).isEqualTo(1);
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+    }
+
+    /**
+     * A small load test against a simulated service whose turns slow down in proportion
+     * to how many run at once, as they do when they contend for the same cores and
+     * engines. Many more clients than it can serve drive the limit down, the excess is
+     * shed, and admitted turns stay near the latency of a lightly loaded service.
+     */
+    @Test
+    void overloadIsShedInsteadOfQueued() throws Exception {
+        AdmissionLimiter limiter = limiter(64, 16, 20);
+        AtomicInteger running = new AtomicInteger();
+        List<Long> latencies = new ArrayList<>();
+        AtomicBoolean stop = new AtomicBoolean();
+        int clients = 48;
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int c = 0; c < clients; c++) {
+            Thread client = new Thread(() -> {
+                try {
+                    while (!stop.get()) {
+                        if (!limiter.acquire(AdmissionLimiter.Priority.NEW)) {
+                            LockSupport.parkNanos(MILLI);
+                            continue;
+                        }
+                        long start = System.nanoTime();
+                        int concurrent = running.incrementAndGet();
+                        LockSupport.parkNanos(Math.max(1, concurrent / 4) * MILLI);
+                        running.decrementAndGet();
+                        limiter.release(start);
+                        synchronized (latencies) {
+                            latencies.add(System.nanoTime() - start);
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+            client.setDaemon(true);
+            client.start();
+        }
+        Thread.sleep(2_000);
+        synchronized (latencies) {
+            latencies.clear();
+        }
+        Thread.sleep(1_000);
+        stop.set(true);
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+
+        long shed = limiter.getShedCount(AdmissionLimiter.ShedReason.QUEUE_FULL)
+                + limiter.getShedCount(AdmissionLimiter.ShedReason.TIMEOUT);
+        assertThat(shed).isPositive();
+        assertThat(limiter.getLimit()).isLessThan(clients / 2);
+        List<Long> sorted;
+        synchronized (latencies) {
+            sorted = new ArrayList<>(latencies);
+        }
+        sorted.sort(null);
+        assertThat(sorted).isNotEmpty();
+        // Unlimited, 48 concurrent turns would each take about 12 ms
+        long median = sorted.get(sorted.size() / 2);
+        assertThat(median).isLessThan(8 * MILLI);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.chatbot.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchChatServiceTest {
+
+    private final NLPService nlpService = mock(NLPService.class);
+    private final BatchChatService batch = new BatchChatService(2, 100);
+
+    @AfterEach
+    void stop() {
+        batch.shutdown();
+    }
+
+    @Test
+    void repliesComeBackInRequestOrder() {
+        ReflectionTestUtils.setField(batch, "nlpService", nlpService);
+        when(nlpService.generateResponse(any(), any(), (String) any())).thenAnswer(call -> "re: " + call.getArgument(0));
+
+        List<String> replies = batch.generateResponses(List.of(
+                new ChatTurn("a", "one", null), new ChatTurn("b", "two", null), new ChatTurn("a", "three", null)));
+        assertThat(replies).containsExactly("re: one", "re: two", "re: three");
+    }
+
+    @Test
+    void failedTurnStopsTheOtherSessionsAndWaitsForThem() {
+        ReflectionTestUtils.setField(batch, "nlpService", nlpService);
+        IllegalStateException boom = new IllegalStateException("boom");
+        AtomicBoolean slowTurnDone = new AtomicBoolean();
+        when(nlpService.generateResponse(eq("fail"), any(), (String) any())).thenThrow(boom);
+        when(nlpService.generateResponse(eq("slow"), any(), (String) any())).thenAnswer(call -> {
+            Thread.sleep(300);
+            slowTurnDone.set(true);
+            return "slow reply";
+        });
+
+        assertThatThrownBy(() -> batch.generateResponses(List.of(
+                new ChatTurn("a", "slow", null), new ChatTurn("b", "fail", null), new ChatTurn("a", "next", null))))
+                .isSameAs(boom);
+        // The running turn was drained before the call returned, and its session went no further
+        assertThat(slowTurnDone).isTrue();
+        verify(nlpService, never()).generateResponse(eq("next"), any(), (String) any());
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.chatbot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClassificationCacheTest {
+
+    @Test
+    void waiterTakesTheLeadersClassification() throws Exception {
+        ClassificationCache cache = new ClassificationCache(true, 100, true, 5_000);
+        assertThat(cache.awaitInFlight("i have a fever", 1)).isNull();
+
+        CompletableFuture<Classification> waiter =
+                CompletableFuture.supplyAsync(() -> cache.awaitInFlight("i have a fever", 1));
+        Thread.sleep(50);
+        Classification result = new Classification("symptom", 0.9, CascadeTier.MODEL);
+        cache.finish("i have a fever", result, 1);
+
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).isEqualTo(result);
+        assertThat(cache.getCoalescedCount()).isEqualTo(1);
+        assertThat(cache.get("i have a fever", 1)).isEqualTo(result);
+    }
+
+    @Test
+    void waiterGivesUpOnAStalledLeader() throws Exception {
+        ClassificationCache cache = new ClassificationCache(true, 100, true, 50);
+        // The leader never finishes
+        assertThat(CompletableFuture.supplyAsync(() -> cache.awaitInFlight("hello", 1)).get()).isNull();
+
+        long start = System.nanoTime();
+        assertThat(cache.awaitInFlight("hello", 1)).isNull();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isBetween(40L, 2_000L);
+        assertThat(cache.getCoalescedCount()).isZero();
+    }
+}
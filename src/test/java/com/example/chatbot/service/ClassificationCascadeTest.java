@@ -0,0 +1,70 @@
+package com.example.chatbot.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = "chat.event-log.enabled=false")
+class ClassificationCascadeTest {
+
+    @Autowired
+    private ClassificationCascade cascade;
+
+    @Autowired
+    private ModelRegistry modelRegistry;
+
+    @Autowired
+    private KnowledgeBase knowledgeBase;
+
+    private Classification shortCircuit(String message) {
+        ModelBundle models = modelRegistry.current();
+        NLPEngine engine = models.getEnginePool().borrow();
+        try {
+            InputText input = engine.normalize(message);
+            Lexicon.Match keywords = knowledgeBase.current().getLexicon().scan(input);
+            return cascade.shortCircuit(models, input.cacheKey(), keywords);
+        } finally {
+            models.getEnginePool().release(engine);
+        }
+    }
+
+    @Test
+    void trainingPhraseIsSettledByThePhraseTier() {
+        Classification result = shortCircuit("Good morning!");
+        assertThat(result).isNotNull();
+        assertThat(result.tier()).isEqualTo(CascadeTier.PHRASE);
+        assertThat(result.category()).isEqualTo("greeting");
+    }
+
+    @Test
+    void shortUnambiguousSmallTalkIsSettledByTheRuleTier() {
+        Classification result = shortCircuit("hey hello");
+        assertThat(result).isNotNull();
+        assertThat(result.tier()).isEqualTo(CascadeTier.RULE);
+        assertThat(result.category()).isEqualTo("greeting");
+    }
+
+    @Test
+    void symptomsAndLongOrMixedMessagesGoToTheModel() {
+        assertThat(shortCircuit("my head has been hurting a lot")).isNull();
+        assertThat(shortCircuit("hello I have a fever")).isNull();
+        assertThat(shortCircuit("hey hey hey hey hey hey")).isNull();
+        assertThat(cascade.isModelEnabled()).isTrue();
+    }
+
+    @Test
+    void evaluationAccountsForEveryTrainingSample() throws Exception {
+        ClassificationCascade.Evaluation evaluation;
+        try (var in = getClass().getResourceAsStream("/training.txt")) {
+            evaluation = cascade.evaluate(modelRegistry.current(), knowledgeBase.current(),
+                    DoccatModelTrainer.readSamples(in));
+        }
+        long classified = evaluation.tiers().values().stream().mapToLong(ClassificationCascade.TierResult::hits).sum();
+        assertThat(classified).isEqualTo(evaluation.samples());
+        // Training phrases are all in the phrase table, so the cheap tiers settle them correctly
+        assertThat(evaluation.tiers().get(CascadeTier.PHRASE.tag()).accuracy()).isEqualTo(1.0);
+        assertThat(evaluation.modelSkipped()).isPositive();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.chatbot.service;
+
+import opennlp.tools.doccat.DoccatModel;
+import opennlp.tools.doccat.DocumentCategorizerME;
+import opennlp.tools.doccat.DocumentSample;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class CompiledDoccatModelTest {
+
+    private static final double TOLERANCE = 1e-6;
+
+    private static DoccatModel model;
+    private static List<DocumentSample> samples;
+
+    @BeforeAll
+    static void train() throws Exception {
+        try (InputStream in = CompiledDoccatModelTest.class.getResourceAsStream("/training.txt")) {
+            samples = DoccatModelTrainer.readSamples(in);
+        }
+        model = DoccatModelTrainer.train(samples);
+    }
+
+    // The training phrases, plus messages with unknown and repeated words
+    private static List<String[]> documents() {
+        List<String[]> documents = new ArrayList<>();
+        for (DocumentSample sample : samples) {
+            documents.add(sample.getText());
+        }
+        documents.add(new String[] {"zebra", "quantum"});
+        documents.add(new String[] {"fever", "fever", "fever"});
+        documents.add(new String[0]);
+        return documents;
+    }
+
+    @Test
+    void tokenScoresMatchDocumentCategorizerME() {
+        CompiledDoccatModel compiled = CompiledDoccatModel.compile(model, TOLERANCE);
+        assertThat(compiled).isNotNull();
+        DocumentCategorizerME reference = new DocumentCategorizerME(model);
+        double[] scores = new double[compiled.getOutcomeCount()];
+
+        for (String[] tokens : documents()) {
+            double[] expected = reference.categorize(tokens);
+            compiled.categorize(tokens, scores);
+            for (int o = 0; o < expected.length; o++) {
+                assertThat(scores[o]).as(String.join(" ", tokens)).isCloseTo(expected[o], within(TOLERANCE));
+            }
+            assertThat(compiled.getBestCategory(scores)).isEqualTo(reference.getBestCategory(expected));
+            assertThat(compiled.matches(expected, scores)).isTrue();
+        }
+        assertThat(compiled.verify(model, documents()).passed()).isTrue();
+    }
+
+    @Test
+    void spanScoresMatchTokenScores() {
+        CompiledDoccatModel compiled = CompiledDoccatModel.compile(model, TOLERANCE);
+        double[] byTokens = new double[compiled.getOutcomeCount()];
+        double[] bySpans = new double[compiled.getOutcomeCount()];
+
+        for (String[] tokens : documents()) {
+            StringBuilder text = new StringBuilder();
+            int[] spans = new int[2 * tokens.length];
+            for (int i = 0; i < tokens.length; i++) {
+                if (i > 0) text.append(' ');
+                spans[2 * i] = text.length();
+                text.append(tokens[i]);
+                spans[2 * i + 1] = text.length();
+            }
+            compiled.categorize(tokens, byTokens);
+            compiled.categorize(text.toString().toCharArray(), spans, tokens.length, bySpans);
+            assertThat(bySpans).as(text.toString()).containsExactly(byTokens);
+        }
+    }
+}
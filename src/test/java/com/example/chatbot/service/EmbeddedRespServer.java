@@ -0,0 +1,219 @@
+package com.example.chatbot.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for a Redis server in tests, speaking just enough RESP2
+ * (PING, GET, SET with EX/PX, DEL, and INFO for the health check) for
+ * {@link RemoteConversationStateStore}'s Lettuce client. Data lives in this JVM's
+ * heap; expired keys are dropped when read and swept every few thousand writes.
+ */
+class EmbeddedRespServer implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddedRespServer.class);
+
+    private record Entry(String value, long expiresAt) {
+    }
+
+    private final ConcurrentMap<String, Entry> data = new ConcurrentHashMap<>();
+    private final AtomicLong writes = new AtomicLong();
+    private final ServerSocket serverSocket;
+    private volatile boolean running = true;
+    private volatile long replyDelayMillis;
+
+    /** Listens on the loopback interface; port 0 picks a free port. */
+    EmbeddedRespServer(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "resp-server-" + getPort());
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("Embedded RESP server listening on {}:{}.", serverSocket.getInetAddress().getHostAddress(), getPort());
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    int size() {
+        return data.size();
+    }
+
+    /** Holds every reply this long before sending it, as a slow or stalled server would; for tests. */
+    void setReplyDelayMillis(long replyDelayMillis) {
+        this.replyDelayMillis = replyDelayMillis;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread handler = new Thread(() -> serve(socket), "resp-server-conn");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Embedded RESP server accept failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(socket.getInputStream(), 1 << 16);
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 1 << 16);
+            while (running) {
+                String[] command = readCommand(in);
+                if (command == null) {
+                    break;
+                }
+                long delay = replyDelayMillis;
+                if (delay > 0) {
+                    out.flush();
+                    try {
+                        Thread.sleep(delay);
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                }
+                try {
+                    execute(command, out);
+                } catch (IndexOutOfBoundsException | NumberFormatException e) {
+                    out.write(("-ERR wrong arguments for '" + command[0] + "'\r\n").getBytes(StandardCharsets.UTF_8));
+                }
+                // Pipelined clients send many commands at once; reply in one write
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // Client went away
+        }
+    }
+
+    private void execute(String[] command, OutputStream out) throws IOException {
+        switch (command[0].toUpperCase()) {
+            case "PING":
+                simple(out, "PONG");
+                break;
+            case "INFO":
+                bulk(out, "# Server\r\nredis_version:0.0.0-embedded\r\n");
+                break;
+            case "GET": {
+                Entry entry = data.get(command[1]);
+                if (entry != null && entry.expiresAt() <= System.currentTimeMillis()) {
+                    data.remove(command[1], entry);
+                    entry = null;
+                }
+                bulk(out, entry != null ? entry.value() : null);
+                break;
+            }
+            case "SET": {
+                long expiresAt = Long.MAX_VALUE;
+                for (int i = 3; i + 1 < command.length; i += 2) {
+                    if (command[i].equalsIgnoreCase("PX")) {
+                        expiresAt = System.currentTimeMillis() + Long.parseLong(command[i + 1]);
+                    } else if (command[i].equalsIgnoreCase("EX")) {
+                        expiresAt = System.currentTimeMillis() + Long.parseLong(command[i + 1]) * 1000;
+                    }
+                }
+                data.put(command[1], new Entry(command[2], expiresAt));
+                if ((writes.incrementAndGet() & 4095) == 0) {
+                    long now = System.currentTimeMillis();
+                    data.values().removeIf(e -> e.expiresAt() <= now);
+                }
+                simple(out, "OK");
+                break;
+            }
+            case "DEL": {
+                int removed = 0;
+                for (int i = 1; i < command.length; i++) {
+                    if (data.remove(command[i]) != null) removed++;
+                }
+                out.write((":" + removed + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                break;
+            }
+            default:
+                out.write(("-ERR unknown command '" + command[0] + "'\r\n").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    // A command is an array of bulk strings; null at end of stream
+    private static String[] readCommand(InputStream in) throws IOException {
+        int type = in.read();
+        if (type < 0) {
+            return null;
+        }
+        if (type != '*') {
+            throw new IOException("Expected a RESP array");
+        }
+        String[] args = new String[Integer.parseInt(readLine(in))];
+        for (int i = 0; i < args.length; i++) {
+            if (in.read() != '$') {
+                throw new IOException("Expected a RESP bulk string");
+            }
+            int length = Integer.parseInt(readLine(in));
+            byte[] bytes = in.readNBytes(length);
+            if (bytes.length < length || in.read() != '\r' || in.read() != '\n') {
+                throw new EOFException("Truncated bulk string");
+            }
+            args[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return args;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(32);
+        int c;
+        while ((c = in.read()) != '\r') {
+            if (c < 0) {
+                throw new EOFException("Connection closed");
+            }
+            line.write(c);
+        }
+        if (in.read() != '\n') {
+            throw new IOException("Malformed RESP line");
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void simple(OutputStream out, String value) throws IOException {
+        out.write(('+' + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void bulk(OutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.write("$-1\r\n".getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.write(('$' + Integer.toString(bytes.length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(bytes);
+        out.write('\r');
+        out.write('\n');
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.chatbot.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InputTextTest {
+
+    @Test
+    void asciiMessageFitsAfterLowercasingGrewTheBuffer() {
+        InputText text = new InputText();
+        // "İ" lowercases to two chars, so the buffer grows past the input length
+        String dotted = "İ".repeat(512);
+        text.set(dotted);
+        assertThat(text.length()).isEqualTo(dotted.toLowerCase().length());
+        text.clear();
+
+        String ascii = "a".repeat(1000);
+        text.set(ascii);
+        assertThat(text.isFastPath()).isTrue();
+        assertThat(text.toString()).isEqualTo(ascii);
+        assertThat(text.cacheKey()).isEqualTo(ClassificationCache.normalize(ascii));
+    }
+
+    @Test
+    void asciiMessageMatchesNormalize() {
+        InputText text = new InputText();
+        text.set("  Hello,  World 42 ");
+        assertThat(text.isFastPath()).isFalse();
+        assertThat(text.toString()).isEqualTo("  hello,  world 42 ");
+        assertThat(text.cacheKey()).isEqualTo(ClassificationCache.normalize("  Hello,  World 42 "));
+        assertThat(text.tokenCount()).isEqualTo(3);
+        assertThat(text.token(0)).isEqualTo("hello,");
+    }
+}
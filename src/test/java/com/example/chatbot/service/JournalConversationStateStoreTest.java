@@ -0,0 +1,98 @@
+package com.example.chatbot.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JournalConversationStateStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private JournalConversationStateStore open(int maxSize, int stripes) throws Exception {
+        return new JournalConversationStateStore(new StripedConversationStateStore(maxSize, 30, stripes), dir,
+                1, 3600, 10, 1 << 16);
+    }
+
+    // The journal is written behind; give the writer thread time to drain its ring
+    private static void settle() throws InterruptedException {
+        Thread.sleep(300);
+    }
+
+    @Test
+    void evictedSessionsStayEvictedAfterRestartWithMoreRoom() throws Exception {
+        JournalConversationStateStore store = open(4, 1);
+        for (int i = 0; i < 10; i++) {
+            store.put("u" + i, ConversationState.awaitingDetails("fever", 1));
+        }
+        settle();
+        // Not closed: the restart replays the journal rather than a final snapshot
+        JournalConversationStateStore restarted = open(100, 1);
+        try {
+            assertThat(restarted.size()).isEqualTo(4);
+            assertThat(restarted.get("u0")).isNull();
+            assertThat(restarted.get("u9")).isNotNull();
+        } finally {
+            restarted.close();
+            store.close();
+        }
+    }
+
+    @Test
+    void concurrentWritesToTheSameSessionsReplayToTheFinalState() throws Exception {
+        JournalConversationStateStore store = open(1000, 4);
+        int threads = 8;
+        int keys = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread writer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 2_000; i++) {
+                    String userId = "u" + random.nextInt(keys);
+                    if (random.nextBoolean()) {
+                        store.put(userId, ConversationState.awaitingDetails("cough", random.nextInt(3)));
+                    } else {
+                        store.remove(userId);
+                    }
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        Map<String, ConversationState> expected = new HashMap<>();
+        for (int k = 0; k < keys; k++) {
+            expected.put("u" + k, store.get("u" + k));
+        }
+        settle();
+        assertThat(store.getDroppedWriteCount()).isZero();
+
+        JournalConversationStateStore restarted = open(1000, 4);
+        try {
+            for (int k = 0; k < keys; k++) {
+                assertThat(restarted.get("u" + k)).as("u" + k).isEqualTo(expected.get("u" + k));
+            }
+        } finally {
+            restarted.close();
+            store.close();
+        }
+    }
+}
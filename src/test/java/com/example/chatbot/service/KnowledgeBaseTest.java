@@ -0,0 +1,63 @@
+package com.example.chatbot.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KnowledgeBaseTest {
+
+    @TempDir
+    Path dir;
+
+    private KnowledgeBase knowledgeBase;
+
+    @BeforeEach
+    void load() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode en;
+        try (InputStream in = getClass().getResourceAsStream("/knowledge-base/en.json")) {
+            en = (ObjectNode) mapper.readTree(in);
+        }
+        mapper.writeValue(dir.resolve("en.json").toFile(), en);
+        ObjectNode fr = en.deepCopy();
+        fr.put("locale", "fr");
+        ((ObjectNode) fr.get("messages")).put("empty", "Dites quelque chose pour que je puisse vous aider.");
+        mapper.writeValue(dir.resolve("fr.json").toFile(), fr);
+
+        knowledgeBase = new KnowledgeBase();
+        ReflectionTestUtils.setField(knowledgeBase, "location", dir.toUri() + "*.json");
+        ReflectionTestUtils.setField(knowledgeBase, "defaultLocale", "en");
+        knowledgeBase.init();
+    }
+
+    @Test
+    void picksTheCatalogOfTheRequestedLocale() {
+        assertThat(knowledgeBase.current("fr").getLocale()).isEqualTo("fr");
+        assertThat(knowledgeBase.current("fr").message(KnowledgeCatalog.Message.EMPTY).toString())
+                .startsWith("Dites");
+        assertThat(knowledgeBase.current("en").getLocale()).isEqualTo("en");
+    }
+
+    @Test
+    void matchesRegionalTagsAndAcceptLanguageLists() {
+        assertThat(knowledgeBase.current("fr-CA").getLocale()).isEqualTo("fr");
+        assertThat(knowledgeBase.current("de-DE,fr;q=0.8,en;q=0.5").getLocale()).isEqualTo("fr");
+        assertThat(knowledgeBase.current("en-US,fr;q=0.9").getLocale()).isEqualTo("en");
+    }
+
+    @Test
+    void fallsBackToTheDefaultLocale() {
+        assertThat(knowledgeBase.current().getLocale()).isEqualTo("en");
+        assertThat(knowledgeBase.current(null).getLocale()).isEqualTo("en");
+        assertThat(knowledgeBase.current("de").getLocale()).isEqualTo("en");
+        assertThat(knowledgeBase.current(";;q=x").getLocale()).isEqualTo("en");
+    }
+}
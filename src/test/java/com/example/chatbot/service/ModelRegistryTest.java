@@ -0,0 +1,143 @@
+package com.example.chatbot.service;
+
+import opennlp.tools.doccat.DoccatModel;
+import opennlp.tools.doccat.DocumentCategorizerEvaluator;
+import opennlp.tools.doccat.DocumentCategorizerME;
+import opennlp.tools.doccat.DocumentSample;
+import opennlp.tools.util.ObjectStreamUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = "chat.event-log.enabled=false")
+class ModelRegistryTest {
+
+    @TempDir
+    static Path storeDir;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("nlp.retrain.store-dir", storeDir::toString);
+    }
+
+    @Autowired
+    private ModelRegistry modelRegistry;
+
+    @Test
+    void acceptedRetrainIsStoredAndReloadable() throws Exception {
+        byte[] training;
+        try (InputStream in = getClass().getResourceAsStream("/training.txt")) {
+            training = in.readAllBytes();
+        }
+        long before = modelRegistry.current().getVersion();
+
+        ModelRegistry.RetrainResult result = modelRegistry.retrain(training, "test").get(60, TimeUnit.SECONDS);
+
+        assertThat(result.accepted()).as(result.message()).isTrue();
+        assertThat(modelRegistry.current().getVersion()).isEqualTo(result.version()).isGreaterThan(before);
+        assertThat(modelRegistry.getHistory()).extracting(ModelBundle.Descriptor::version)
+                .startsWith(result.version(), before);
+        assertThat(Files.readAllBytes(storeDir.resolve("training.txt"))).isEqualTo(training);
+        // The live model is the one that was validated: it scores the reported accuracy on the held-out split
+        assertThat(heldOutAccuracy(modelRegistry.current().getDoccatModel(), training))
+                .isEqualTo(result.heldOutAccuracy());
+
+        ModelRegistry.StoredModel stored = modelRegistry.loadStored();
+        assertThat(stored).isNotNull();
+        assertThat(stored.samples()).hasSameSizeAs(DoccatModelTrainer.readSamples(new ByteArrayInputStream(training)));
+        assertThat(stored.doccatModel().getMaxentModel().getNumOutcomes())
+                .isEqualTo(modelRegistry.current().getDoccatModel().getMaxentModel().getNumOutcomes());
+    }
+
+    @Test
+    void storedRetrainOverADifferentPackagedModelIsIgnored() throws Exception {
+        ModelRegistry.RetrainResult result = modelRegistry.retrain(packagedTraining(), "test").get(60, TimeUnit.SECONDS);
+        assertThat(result.accepted()).as(result.message()).isTrue();
+        assertThat(modelRegistry.loadStored()).isNotNull();
+
+        // As if the retrain had been stored by a build that shipped another training.txt
+        Files.writeString(storeDir.resolve("packaged-training.sha256"), "0".repeat(64));
+        assertThat(modelRegistry.loadStored()).isNull();
+    }
+
+    @Test
+    void rejectedRetrainLeavesTheCurrentBundleLive() throws Exception {
+        // Real phrases under shuffled labels: nothing generalizes to the held-out split
+        List<String> lines = new ArrayList<>();
+        List<String> categories = new ArrayList<>();
+        for (DocumentSample sample : DoccatModelTrainer.readSamples(new ByteArrayInputStream(packagedTraining()))) {
+            lines.add(String.join(" ", sample.getText()));
+            categories.add(sample.getCategory());
+        }
+        Collections.shuffle(categories, new Random(42));
+        StringBuilder scrambled = new StringBuilder();
+        for (int i = 0; i < lines.size(); i++) {
+            scrambled.append(categories.get(i)).append(' ').append(lines.get(i)).append('\n');
+        }
+        ModelBundle before = modelRegistry.current();
+        List<ModelBundle.Descriptor> history = modelRegistry.getHistory();
+
+        ModelRegistry.RetrainResult result = modelRegistry.retrain(
+                scrambled.toString().getBytes(StandardCharsets.UTF_8), "test").get(60, TimeUnit.SECONDS);
+
+        assertThat(result.accepted()).as(result.message()).isFalse();
+        assertThat(modelRegistry.current()).isSameAs(before);
+        assertThat(modelRegistry.getHistory()).isEqualTo(history);
+    }
+
+    @Test
+    void inFlightTurnFinishesOnTheBundleItStartedWith() throws Exception {
+        ModelBundle old = modelRegistry.current();
+        NLPEngine engine = old.getEnginePool().borrow();
+        String[] tokens = {"i", "have", "a", "bad", "headache"};
+        double[] expected = new DocumentCategorizerME(old.getDoccatModel()).categorize(tokens);
+
+        ModelRegistry.RetrainResult result = modelRegistry.retrain(packagedTraining(), "test").get(60, TimeUnit.SECONDS);
+        assertThat(result.accepted()).as(result.message()).isTrue();
+        assertThat(modelRegistry.current()).isNotSameAs(old);
+
+        // The borrowed engine still scores with the old model and goes back to the old pool
+        assertThat(engine.categorize(tokens)).containsExactly(expected, within(1e-4));
+        old.getEnginePool().release(engine);
+        assertThat(old.getEnginePool().getBusyCount()).isZero();
+    }
+
+    private byte[] packagedTraining() throws Exception {
+        try (InputStream in = getClass().getResourceAsStream("/training.txt")) {
+            return in.readAllBytes();
+        }
+    }
+
+    // Every 5th sample of each category, as ModelRegistry holds out with the default nlp.retrain.holdout-every
+    private static double heldOutAccuracy(DoccatModel model, byte[] training) throws Exception {
+        List<DocumentSample> heldOut = new ArrayList<>();
+        Map<String, Integer> seen = new HashMap<>();
+        for (DocumentSample sample : DoccatModelTrainer.readSamples(new ByteArrayInputStream(training))) {
+            if (seen.merge(sample.getCategory(), 1, Integer::sum) % 5 == 0) {
+                heldOut.add(sample);
+            }
+        }
+        DocumentCategorizerEvaluator evaluator = new DocumentCategorizerEvaluator(new DocumentCategorizerME(model));
+        evaluator.evaluate(ObjectStreamUtils.createObjectStream(heldOut));
+        return evaluator.getAccuracy();
+    }
+}
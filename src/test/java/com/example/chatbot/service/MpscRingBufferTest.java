@@ -0,0 +1,104 @@
+package com.example.chatbot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MpscRingBufferTest {
+
+    private static final class Slot {
+        int producer;
+        int value;
+    }
+
+    @Test
+    void fullRingRefusesClaimsUntilDrained() {
+        MpscRingBuffer<Slot> ring = new MpscRingBuffer<>(4, Slot::new);
+        for (int i = 0; i < 4; i++) {
+            long position = ring.tryClaim();
+            assertThat(position).isEqualTo(i);
+            ring.get(position).value = i;
+            ring.publish(position);
+        }
+        assertThat(ring.tryClaim()).isEqualTo(-1);
+
+        List<Integer> drained = new ArrayList<>();
+        assertThat(ring.drain(slot -> drained.add(slot.value), 2)).isEqualTo(2);
+        assertThat(drained).containsExactly(0, 1);
+        assertThat(ring.tryClaim()).isEqualTo(4);
+    }
+
+    @Test
+    void drainStopsAtAnUnpublishedSlot() {
+        MpscRingBuffer<Slot> ring = new MpscRingBuffer<>(4, Slot::new);
+        long first = ring.tryClaim();
+        long second = ring.tryClaim();
+        ring.publish(second);
+        assertThat(ring.drain(slot -> { }, 10)).isZero();
+        ring.publish(first);
+        assertThat(ring.drain(slot -> { }, 10)).isEqualTo(2);
+    }
+
+    @Test
+    void everyEventOfConcurrentProducersIsDrainedOnceAndInProducerOrder() throws Exception {
+        int producers = 4;
+        int perProducer = 100_000;
+        MpscRingBuffer<Slot> ring = new MpscRingBuffer<>(64, Slot::new);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    long position;
+                    // A small ring fills often; retry rather than drop so every value must arrive
+                    while ((position = ring.tryClaim()) < 0) {
+                        Thread.yield();
+                    }
+                    Slot slot = ring.get(position);
+                    slot.producer = producer;
+                    slot.value = i;
+                    ring.publish(position);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        int[] next = new int[producers];
+        long[] received = {0};
+        boolean[] outOfOrder = {false};
+        start.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (received[0] < (long) producers * perProducer && System.nanoTime() < deadline) {
+            int drained = ring.drain(slot -> {
+                if (slot.value != next[slot.producer]) {
+                    outOfOrder[0] = true;
+                }
+                next[slot.producer] = slot.value + 1;
+                received[0]++;
+            }, 256);
+            if (drained == 0) {
+                Thread.yield();
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join(10_000);
+        }
+
+        assertThat(outOfOrder[0]).isFalse();
+        assertThat(received[0]).isEqualTo((long) producers * perProducer);
+        assertThat(next).containsOnly(perProducer);
+        assertThat(ring.drain(slot -> { }, 256)).isZero();
+    }
+}
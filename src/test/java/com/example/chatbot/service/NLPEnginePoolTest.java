@@ -0,0 +1,70 @@
+package com.example.chatbot.service;
+
+import opennlp.tools.doccat.DoccatModel;
+import opennlp.tools.tokenize.TokenizerModel;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NLPEnginePoolTest {
+
+    private static TokenizerModel tokenizerModel;
+    private static DoccatModel doccatModel;
+
+    @BeforeAll
+    static void loadModels() throws IOException {
+        try (InputStream in = NLPEnginePoolTest.class.getResourceAsStream("/models/en-token.bin")) {
+            tokenizerModel = new TokenizerModel(in);
+        }
+        try (InputStream in = NLPEnginePoolTest.class.getResourceAsStream("/training.txt")) {
+            doccatModel = DoccatModelTrainer.train(in);
+        }
+    }
+
+    @Test
+    void borrowsTransientEnginesUpToTheCapThenFails() {
+        NLPEnginePool pool = new NLPEnginePool(tokenizerModel, doccatModel, null, null, null, 2, 3, 50);
+        List<NLPEngine> borrowed = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            borrowed.add(pool.borrow());
+        }
+        assertThat(pool.getBusyCount()).isEqualTo(3);
+        assertThat(pool.getCreatedCount()).isEqualTo(3);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(pool::borrow).isInstanceOf(EngineUnavailableException.class);
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(50_000_000L);
+
+        for (NLPEngine engine : borrowed) {
+            pool.release(engine);
+        }
+        assertThat(pool.getBusyCount()).isZero();
+        assertThat(pool.getIdleCount()).isEqualTo(2);
+        pool.release(pool.borrow());
+        assertThat(pool.getCreatedCount()).isEqualTo(3);
+    }
+
+    @Test
+    void waitingBorrowGetsAReleasedEngine() throws Exception {
+        NLPEnginePool pool = new NLPEnginePool(tokenizerModel, doccatModel, null, null, null, 1, 1, 5_000);
+        NLPEngine engine = pool.borrow();
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            pool.release(engine);
+        });
+        releaser.start();
+        assertThat(pool.borrow()).isSameAs(engine);
+        releaser.join();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.chatbot.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many threads through {@link NLPService} at once, on a small capped engine pool and
+ * with the classification cache off so every turn reaches an engine: each reply must
+ * equal the one the same message got single-threaded.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "chat.event-log.enabled=false",
+        "nlp.classification-cache.enabled=false",
+        "nlp.engine.pool-size=2",
+        "nlp.engine.max-engines=4",
+        "nlp.engine.borrow-timeout-ms=60000"
+})
+class NLPServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private NLPService nlpService;
+
+    @Test
+    void concurrentRepliesMatchSingleThreaded() throws Exception {
+        List<String> messages = messages();
+        // A fresh session per call, so a reply depends on its message only
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            expected.add(nlpService.generateResponse(messages.get(i), "single-" + i));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                Callable<List<String>> worker = () -> {
+                    List<String> replies = new ArrayList<>();
+                    for (int round = 0; round < ROUNDS; round++) {
+                        for (int i = 0; i < messages.size(); i++) {
+                            // Threads walk the corpus from different offsets so they collide on different messages
+                            int m = (i + thread * 7) % messages.size();
+                            replies.add(m + "\u0000" + nlpService.generateResponse(messages.get(m),
+                                    "t" + thread + "-r" + round + "-" + m));
+                        }
+                    }
+                    return replies;
+                };
+                results.add(executor.submit(worker));
+            }
+            for (Future<List<String>> result : results) {
+                for (String reply : result.get()) {
+                    int m = Integer.parseInt(reply.substring(0, reply.indexOf('\u0000')));
+                    assertThat(reply.substring(reply.indexOf('\u0000') + 1))
+                            .as("reply to \"%s\"", messages.get(m))
+                            .isEqualTo(expected.get(m));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<String> messages() throws IOException {
+        List<String> messages = new ArrayList<>();
+        try (InputStream in = NLPServiceConcurrencyTest.class.getResourceAsStream("/training.txt")) {
+            for (var sample : DoccatModelTrainer.readSamples(in)) {
+                String text = String.join(" ", sample.getText());
+                messages.add(text);
+                messages.add("Um, " + text.toUpperCase() + "?");
+            }
+        }
+        return messages;
+    }
+}
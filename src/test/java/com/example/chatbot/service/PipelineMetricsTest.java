@@ -0,0 +1,35 @@
+package com.example.chatbot.service;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class PipelineMetricsTest {
+
+    @Test
+    void stageThatRunsTwiceIsOneSampleOfTheSum() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PipelineMetrics metrics = new PipelineMetrics(registry, mock(ConversationStateStore.class),
+                mock(ClassificationCache.class), mock(ModelRegistry.class), mock(ConversationEventLog.class),
+                mock(AdmissionLimiter.class));
+        TurnTrace trace = new TurnTrace();
+        long start = System.nanoTime();
+
+        long t = metrics.record(PipelineStage.EXTRACT, start - 3_000, trace);
+        t = metrics.record(PipelineStage.TOKENIZE, t, trace);
+        metrics.record(PipelineStage.EXTRACT, t - 5_000, trace);
+        metrics.recordTurn(start, trace);
+
+        Timer extract = registry.get("nlp.stage.latency").tag("stage", "extract").timer();
+        assertThat(extract.count()).isEqualTo(1);
+        assertThat(extract.totalTime(TimeUnit.NANOSECONDS)).isEqualTo(trace.stageNanos[PipelineStage.EXTRACT.ordinal()])
+                .isGreaterThanOrEqualTo(8_000);
+        assertThat(registry.get("nlp.stage.latency").tag("stage", "tokenize").timer().count()).isEqualTo(1);
+        assertThat(registry.get("nlp.stage.latency").tag("stage", "normalize").timer().count()).isZero();
+    }
+}
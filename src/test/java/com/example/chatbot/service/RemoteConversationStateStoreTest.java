@@ -0,0 +1,172 @@
+package com.example.chatbot.service;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RemoteConversationStateStoreTest {
+
+    private EmbeddedRespServer server;
+    private RedisClient client;
+    private final List<RemoteConversationStateStore> stores = new ArrayList<>();
+
+    @BeforeEach
+    void start() throws Exception {
+        server = new EmbeddedRespServer(0);
+        client = RedisClient.create();
+        client.setOptions(RemoteConversationStateStore.clientOptions(1000, 1000));
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        stores.forEach(RemoteConversationStateStore::close);
+        client.shutdown(Duration.ZERO, Duration.ofSeconds(2));
+        server.close();
+    }
+
+    // One store per simulated instance, each with its own near-cache
+    private RemoteConversationStateStore store(int port, long nearCacheTtlMs, long ttlMillis, long readTimeoutMs) {
+        RedisURI uri = RedisURI.builder().withHost("localhost").withPort(port).withTimeout(Duration.ofSeconds(1)).build();
+        RemoteConversationStateStore store = new RemoteConversationStateStore(client, uri, "test:", 1000,
+                nearCacheTtlMs, ttlMillis, readTimeoutMs);
+        stores.add(store);
+        return store;
+    }
+
+    private RemoteConversationStateStore store(long nearCacheTtlMs, long ttlMillis) {
+        return store(server.getPort(), nearCacheTtlMs, ttlMillis, 1000);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 5 s").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void putGetAndRemoveAreSharedThroughTheServer() throws Exception {
+        RemoteConversationStateStore first = store(200, 60_000);
+        RemoteConversationStateStore second = store(200, 60_000);
+        ConversationState state = ConversationState.awaitingDetails("headache", 1);
+
+        first.put("u1", state);
+        assertThat(first.get("u1")).isEqualTo(state);
+        await(() -> server.size() == 1);
+        assertThat(second.get("u1")).isEqualTo(state);
+
+        first.remove("u1");
+        assertThat(first.get("u1")).isNull();
+        await(() -> server.size() == 0);
+        // The other instance serves its near-cached copy until the near-cache TTL
+        assertThat(second.get("u1")).isEqualTo(state);
+        Thread.sleep(300);
+        assertThat(second.get("u1")).isNull();
+        assertThat(first.getDroppedWriteCount()).isZero();
+    }
+
+    @Test
+    void statesExpireAfterTheSessionTtl() throws Exception {
+        RemoteConversationStateStore first = store(60_000, 300);
+        first.put("u1", ConversationState.awaitingDetails("fever", 1));
+        await(() -> server.size() == 1);
+        assertThat(store(60_000, 300).get("u1")).isNotNull();
+
+        Thread.sleep(400);
+        assertThat(first.get("u1")).isNull();
+        // Expired on the server too, not just in the near-caches
+        assertThat(store(60_000, 300).get("u1")).isNull();
+    }
+
+    @Test
+    void slowServerReadIsNoStateAndIsNotCached() throws Exception {
+        RemoteConversationStateStore store = store(server.getPort(), 60_000, 60_000, 50);
+        server.setReplyDelayMillis(500);
+
+        long start = System.nanoTime();
+        assertThat(store.get("u1")).isNull();
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(400));
+        assertThat(store.getFailedReadCount()).isEqualTo(1);
+
+        server.setReplyDelayMillis(0);
+        ConversationState state = ConversationState.awaitingDetails("cough", 1);
+        store(60_000, 60_000).put("u1", state);
+        await(() -> server.size() == 1);
+        // Let the delayed GET drain before reading again
+        Thread.sleep(600);
+        assertThat(store.get("u1")).isEqualTo(state);
+    }
+
+    @Test
+    void absentSessionIsNotCachedSoAFlowStartedElsewhereIsSeen() throws Exception {
+        RemoteConversationStateStore first = store(60_000, 60_000);
+        RemoteConversationStateStore second = store(60_000, 60_000);
+        assertThat(second.get("u1")).isNull();
+
+        ConversationState state = ConversationState.awaitingDetails("cough", 1);
+        first.put("u1", state);
+        await(() -> server.size() == 1);
+        assertThat(second.get("u1")).isEqualTo(state);
+    }
+
+    @Test
+    void withoutNearCacheEveryReadSeesTheServer() throws Exception {
+        RemoteConversationStateStore first = store(0, 60_000);
+        RemoteConversationStateStore second = store(0, 60_000);
+        ConversationState state = ConversationState.awaitingDetails("fever", 1);
+
+        first.put("u1", state);
+        await(() -> server.size() == 1);
+        assertThat(second.get("u1")).isEqualTo(state);
+        first.remove("u1");
+        await(() -> server.size() == 0);
+        assertThat(second.get("u1")).isNull();
+        assertThat(second.size()).isZero();
+    }
+
+    @Test
+    void peekAnswersFromTheNearCacheWithoutAskingTheServer() throws Exception {
+        RemoteConversationStateStore cached = store(server.getPort(), 60_000, 60_000, 1000);
+        RemoteConversationStateStore uncached = store(server.getPort(), 0, 60_000, 1000);
+        ConversationState state = ConversationState.awaitingDetails("rash", 1);
+        cached.put("u1", state);
+        await(() -> server.size() == 1);
+
+        server.setReplyDelayMillis(500);
+        long start = System.nanoTime();
+        assertThat(cached.peek("u1")).isEqualTo(state);
+        assertThat(uncached.peek("u1")).isNull();
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(100));
+        assertThat(uncached.getFailedReadCount()).isZero();
+    }
+
+    @Test
+    void startsWithoutTheServerAndConnectsOnceItIsUp() throws Exception {
+        int port;
+        try (ServerSocket free = new ServerSocket(0)) {
+            port = free.getLocalPort();
+        }
+        RemoteConversationStateStore store = store(port, 60_000, 60_000, 200);
+        assertThat(store.get("u1")).isNull();
+        store.put("u1", ConversationState.awaitingDetails("rash", 1));
+        assertThat(store.getDroppedWriteCount()).isEqualTo(1);
+
+        try (EmbeddedRespServer late = new EmbeddedRespServer(port)) {
+            await(() -> {
+                store.put("u2", ConversationState.awaitingDetails("rash", 1));
+                return late.size() == 1;
+            });
+        }
+    }
+}